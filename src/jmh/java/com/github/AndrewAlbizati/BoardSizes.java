@@ -0,0 +1,24 @@
+package com.github.AndrewAlbizati;
+
+/**
+ * Turns the board sizes used as benchmark parameters into boards.
+ * A size is either the name of a difficulty or "rows x columns @ density", for example "1000x1000@0.20".
+ */
+final class BoardSizes {
+    private BoardSizes() {
+    }
+
+    static Board create(String size) {
+        for (Difficulties difficulty : Difficulties.values()) {
+            if (difficulty.name().equals(size)) {
+                return new Board(difficulty.rows, difficulty.columns, difficulty.mines);
+            }
+        }
+
+        String[] parts = size.split("[x@]");
+        int rows = Integer.parseInt(parts[0]);
+        int cols = Integer.parseInt(parts[1]);
+        double density = Double.parseDouble(parts[2]);
+        return new Board(rows, cols, (int) (rows * (long) cols * density));
+    }
+}
@@ -0,0 +1,57 @@
+package com.github.AndrewAlbizati;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Placing the mines and counting the adjacent mines of every tile.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GenerateBenchmark {
+    @Param({"BEGINNER", "INTERMEDIATE", "EXPERT", "1000x1000@0.10", "1000x1000@0.30", "3000x3000@0.20"})
+    public String size;
+
+    private Board board;
+    private final Random rand = new Random(1);
+
+    @Setup
+    public void setUp() {
+        board = BoardSizes.create(size);
+    }
+
+    /**
+     * A new board without a first click, like a board checked by the no guessing generator.
+     */
+    @Benchmark
+    public Board generate() {
+        board.generate(rand);
+        return board;
+    }
+
+    /**
+     * A new board with the mines placed around the first click, like every normal game.
+     */
+    @Benchmark
+    public Board placeMinesAroundFirstClick() {
+        board.clear();
+        board.placeMines(rand, board.getRows() / 2, board.getColumns() / 2);
+        return board;
+    }
+}
@@ -0,0 +1,45 @@
+package com.github.AndrewAlbizati;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Checking for a win after a click, on a board that is partly revealed.
+ * Run without -ea, the check shouldn't depend on the size of the board.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HasWinBenchmark {
+    @Param({"EXPERT", "1000x1000@0.20", "3000x3000@0.20"})
+    public String size;
+
+    private Board board;
+
+    @Setup
+    public void setUp() {
+        board = BoardSizes.create(size);
+        board.placeMines(new Random(1), board.getRows() / 2, board.getColumns() / 2);
+        board.reveal(board.getRows() / 2, board.getColumns() / 2);
+    }
+
+    @Benchmark
+    public boolean hasWin() {
+        return board.hasWin();
+    }
+}
@@ -0,0 +1,79 @@
+package com.github.AndrewAlbizati;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Painting the board into an offscreen image, the same work Swing does when a window is repainted.
+ * "viewport" paints the visible area of a 1280x800 window, "cell" paints a single tile like a flag toggle.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class RenderBenchmark {
+    private static final int VIEWPORT_WIDTH = 1280;
+    private static final int VIEWPORT_HEIGHT = 800;
+
+    @Param({"EXPERT", "1000x1000@0.20"})
+    public String size;
+
+    @Param({"false", "true"})
+    public boolean revealed;
+
+    private BoardPanel panel;
+    private BufferedImage image;
+    private Graphics2D graphics;
+
+    @Setup
+    public void setUp() {
+        Board board = BoardSizes.create(size);
+        board.placeMines(new Random(1), 0, 0);
+        board.reveal(0, 0);
+
+        panel = new BoardPanel(board);
+        panel.setSize(panel.getPreferredSize());
+        if (revealed) {
+            panel.revealAll();
+        }
+
+        image = new BufferedImage(VIEWPORT_WIDTH, VIEWPORT_HEIGHT, BufferedImage.TYPE_INT_RGB);
+        graphics = image.createGraphics();
+    }
+
+    @TearDown
+    public void tearDown() {
+        graphics.dispose();
+    }
+
+    @Benchmark
+    public BufferedImage viewport() {
+        graphics.setClip(0, 0, Math.min(panel.getWidth(), VIEWPORT_WIDTH), Math.min(panel.getHeight(), VIEWPORT_HEIGHT));
+        panel.paintComponent(graphics);
+        return image;
+    }
+
+    @Benchmark
+    public BufferedImage cell() {
+        graphics.setClip(BoardPanel.TILE_SIZE, BoardPanel.TILE_SIZE, BoardPanel.TILE_SIZE, BoardPanel.TILE_SIZE);
+        panel.paintComponent(graphics);
+        return image;
+    }
+}
@@ -0,0 +1,52 @@
+package com.github.AndrewAlbizati;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Flood filling from a corner. With no mines every tile is blank, the worst case where one click reveals the whole board.
+ * The tiles are hidden again inside each call, since a fill of a small board takes far less than the millisecond
+ * a per-invocation setup needs. Subtract the time of hideAll from revealFromCorner for the fill alone.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RevealBenchmark {
+    @Param({"EXPERT", "100x100@0", "1000x1000@0", "3000x3000@0", "1000x1000@0.05"})
+    public String size;
+
+    private Board board;
+
+    @Setup
+    public void setUp() {
+        board = BoardSizes.create(size);
+        board.placeMines(new Random(1), 0, 0);
+    }
+
+    @Benchmark
+    public int revealFromCorner() {
+        board.hideAll();
+        return board.reveal(0, 0).size();
+    }
+
+    @Benchmark
+    public boolean hideAll() {
+        board.hideAll();
+        return board.isRevealed(0, 0);
+    }
+}
@@ -0,0 +1,494 @@
+package com.github.AndrewAlbizati;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Headless Minesweeper board that doesn't depend on Swing.
+ * Mines, revealed tiles, and flags are stored in packed bit sets (one bit per tile),
+ * and the number of adjacent mines for each tile is stored in a byte array.
+ * Tiles are addressed by row and column, internally by the index row * columns + column.
+ * Which tiles are adjacent is given by the board's Topology: square unless another shape is chosen.
+ */
+public class Board implements BoardView {
+    private final int rows;
+    private final int cols;
+    private final int mines;
+    private final int cells;
+    private final Topology topology;
+
+    private final long[] mineBits;
+    private final long[] revealedBits;
+    private final long[] flagBits;
+    private final byte[] numbers;
+
+    private long[] rowMasks = null; // Mines as row bitmasks, used when calculating numbers
+    private final CellList revealedCells = new CellList();
+    private int revealedSafeCells = 0;
+
+    /**
+     * Creates an empty board with no mines placed. Call generate() to place the mines.
+     * @param rows The amount of rows on the board.
+     * @param cols The amount of columns on the board.
+     * @param mines The amount of mines that will be placed on the board.
+     */
+    public Board(int rows, int cols, int mines) {
+        this(rows, cols, mines, Topology.Shape.SQUARE);
+    }
+
+    /**
+     * Creates an empty board of some shape with no mines placed. Call generate() to place the mines.
+     * @param rows The amount of rows on the board.
+     * @param cols The amount of columns on the board.
+     * @param mines The amount of mines that will be placed on the board.
+     * @param shape Which tiles are next to each other.
+     */
+    public Board(int rows, int cols, int mines, Topology.Shape shape) {
+        validate(rows, cols, mines);
+        this.rows = rows;
+        this.cols = cols;
+        this.mines = mines;
+        this.cells = rows * cols;
+        this.topology = Topology.of(shape, rows, cols);
+
+        int words = (cells + 63) >>> 6;
+        mineBits = new long[words];
+        revealedBits = new long[words];
+        flagBits = new long[words];
+        numbers = new byte[cells];
+    }
+
+    /**
+     * Checks that a board of some size can be made. At least one tile is always left without a mine,
+     * so the first tile revealed can be kept safe. The tiles around it are only kept safe when there is room.
+     * @param rows The amount of rows on the board.
+     * @param cols The amount of columns on the board.
+     * @param mines The amount of mines on the board.
+     * @throws IllegalArgumentException If the board can't be made, with a message that says why.
+     */
+    public static void validate(int rows, int cols, int mines) {
+        if (rows <= 0 || cols <= 0) {
+            throw new IllegalArgumentException("Board must have at least one row and one column");
+        }
+        if ((long) rows * cols > Integer.MAX_VALUE - 63) {
+            throw new IllegalArgumentException("Board is too large: " + rows + " x " + cols);
+        }
+        if (mines < 0 || mines >= rows * cols) {
+            throw new IllegalArgumentException("Invalid amount of mines: " + mines + ", a " + rows + " x " + cols
+                    + " board can have 0 - " + (rows * cols - 1));
+        }
+    }
+
+    @Override
+    public int getRows() {
+        return rows;
+    }
+
+    @Override
+    public int getColumns() {
+        return cols;
+    }
+
+    @Override
+    public int getMines() {
+        return mines;
+    }
+
+    public int getCells() {
+        return cells;
+    }
+
+    @Override
+    public Topology getTopology() {
+        return topology;
+    }
+
+    /**
+     * Converts a row and column into the index used by the internal arrays.
+     * @param r The row of the tile.
+     * @param c The column of the tile.
+     * @return The index of the tile.
+     */
+    public int index(int r, int c) {
+        return r * cols + c;
+    }
+
+    public boolean hasMine(int r, int c) {
+        return get(mineBits, index(r, c));
+    }
+
+    @Override
+    public boolean isRevealed(int r, int c) {
+        return get(revealedBits, index(r, c));
+    }
+
+    @Override
+    public boolean isFlagged(int r, int c) {
+        return get(flagBits, index(r, c));
+    }
+
+    public boolean hasMine(int i) {
+        return get(mineBits, i);
+    }
+
+    @Override
+    public boolean isRevealed(int i) {
+        return get(revealedBits, i);
+    }
+
+    @Override
+    public boolean isFlagged(int i) {
+        return get(flagBits, i);
+    }
+
+    /**
+     * @param i The index of a tile.
+     * @return The row of the tile.
+     */
+    public int getRow(int i) {
+        return i / cols;
+    }
+
+    /**
+     * @param i The index of a tile.
+     * @return The column of the tile.
+     */
+    public int getColumn(int i) {
+        return i % cols;
+    }
+
+    /**
+     * @return The amount of mines adjacent to the tile (0 - 8, 0 - 6 on hexagonal boards).
+     */
+    @Override
+    public int getNumber(int r, int c) {
+        return numbers[index(r, c)];
+    }
+
+    public void setFlagged(int r, int c, boolean flagged) {
+        set(flagBits, index(r, c), flagged);
+    }
+
+    /**
+     * Hides every tile and removes every mine and flag.
+     */
+    public void clear() {
+        Arrays.fill(mineBits, 0L);
+        Arrays.fill(revealedBits, 0L);
+        Arrays.fill(flagBits, 0L);
+        Arrays.fill(numbers, (byte) 0);
+        revealedSafeCells = 0;
+    }
+
+    /**
+     * Hides every tile and removes every flag, keeping the mines where they are.
+     */
+    public void hideAll() {
+        Arrays.fill(revealedBits, 0L);
+        Arrays.fill(flagBits, 0L);
+        revealedSafeCells = 0;
+    }
+
+    /**
+     * Reveals or hides a single tile without revealing the tiles around it, used to undo and redo moves.
+     * @param i The index of the tile.
+     * @param revealed If the tile is revealed.
+     */
+    public void setRevealed(int i, boolean revealed) {
+        if (get(revealedBits, i) == revealed) {
+            return;
+        }
+        set(revealedBits, i, revealed);
+        if (!get(mineBits, i)) {
+            revealedSafeCells += revealed ? 1 : -1;
+        }
+    }
+
+    /**
+     * @return A copy of the mines, one bit per tile in the order of the tile indices.
+     */
+    public long[] copyMines() {
+        return mineBits.clone();
+    }
+
+    /**
+     * Replaces the mines with ones placed somewhere else, then calculates the adjacent mines for each tile.
+     * Flags and revealed tiles are kept.
+     * @param mines The mines in the format returned by copyMines().
+     */
+    public void setMines(long[] mines) {
+        if (mines.length != mineBits.length) {
+            throw new IllegalArgumentException("Expected " + mineBits.length + " words of mines, got " + mines.length);
+        }
+        int count = 0;
+        for (long word : mines) {
+            count += Long.bitCount(word);
+        }
+        if (count != this.mines || (cells & 63) != 0 && mines[mines.length - 1] >>> (cells & 63) != 0) {
+            throw new IllegalArgumentException("Expected " + this.mines + " mines on the board");
+        }
+
+        System.arraycopy(mines, 0, mineBits, 0, mines.length);
+        calculateNumbers();
+        revealedSafeCells = countRevealedSafeCells();
+    }
+
+    /**
+     * @return A copy of the revealed tiles, one bit per tile in the order of the tile indices.
+     */
+    public long[] copyRevealed() {
+        return revealedBits.clone();
+    }
+
+    /**
+     * @return A copy of the flags, one bit per tile in the order of the tile indices.
+     */
+    public long[] copyFlags() {
+        return flagBits.clone();
+    }
+
+    /**
+     * Puts back the revealed tiles and flags that were copied earlier. The mines are left as they are.
+     * @param revealed The revealed tiles in the format returned by copyRevealed().
+     * @param flags The flags in the format returned by copyFlags().
+     */
+    public void restore(long[] revealed, long[] flags) {
+        if (revealed.length != revealedBits.length || flags.length != flagBits.length) {
+            throw new IllegalArgumentException("The tiles don't match the size of the board");
+        }
+        System.arraycopy(revealed, 0, revealedBits, 0, revealed.length);
+        System.arraycopy(flags, 0, flagBits, 0, flags.length);
+        revealedSafeCells = countRevealedSafeCells();
+    }
+
+    /**
+     * Clears the board and randomly places all the mines, then calculates the adjacent mines for each tile.
+     * @param rand The source of randomness used to place the mines.
+     */
+    public void generate(Random rand) {
+        clear();
+        placeMines(rand);
+    }
+
+    /**
+     * Removes all mines and randomly places them again, then calculates the adjacent mines for each tile.
+     * Flags and revealed tiles are kept.
+     * @param rand The source of randomness used to place the mines.
+     */
+    public void placeMines(Random rand) {
+        placeMines(rand, -1, -1, false);
+    }
+
+    /**
+     * Removes all mines and randomly places them again so that a tile and its neighbors don't have a mine,
+     * making that tile blank. If there are too many mines for that, only the tile itself is kept free of mines.
+     * Flags and revealed tiles are kept.
+     * @param rand The source of randomness used to place the mines.
+     * @param safeRow The row of the tile that is kept free of mines.
+     * @param safeCol The column of the tile that is kept free of mines.
+     */
+    public void placeMines(Random rand, int safeRow, int safeCol) {
+        placeMines(rand, safeRow, safeCol, true);
+    }
+
+    /**
+     * Places the mines in a single pass over the board using selection sampling:
+     * each tile that may have a mine gets one with probability (mines left to place) / (tiles left to visit).
+     * Every placement is equally likely and the time taken doesn't depend on the density of mines.
+     */
+    private void placeMines(Random rand, int safeRow, int safeCol, boolean keepSafe) {
+        Arrays.fill(mineBits, 0L);
+        Arrays.fill(numbers, (byte) 0);
+
+        // Tiles that can't have mines in increasing order, none if keepSafe is false
+        int[] safeCells = new int[0];
+        if (keepSafe) {
+            int safeCell = index(safeRow, safeCol);
+            int[] offsets = topology.offsets(safeCell);
+            if (mines > cells - offsets.length - 1) {
+                safeCells = new int[] {safeCell};
+            } else {
+                safeCells = new int[offsets.length + 1];
+                for (int i = 0; i < offsets.length; i++) {
+                    safeCells[i] = safeCell + offsets[i];
+                }
+                safeCells[offsets.length] = safeCell;
+                Arrays.sort(safeCells);
+            }
+        }
+        int available = cells - safeCells.length;
+
+        int needed = mines;
+        int nextSafe = 0;
+        for (int i = 0; i < cells && needed > 0; i++) {
+            if (nextSafe < safeCells.length && i == safeCells[nextSafe]) {
+                nextSafe++;
+                continue;
+            }
+            if (rand.nextInt(available) < needed) {
+                set(mineBits, i, true);
+                needed--;
+            }
+            available--;
+        }
+
+        calculateNumbers();
+        revealedSafeCells = countRevealedSafeCells();
+    }
+
+    /**
+     * Calculates the amount of adjacent mines for each tile without a mine.
+     * On square boards the mines are copied into row bitmasks so the counts can be calculated 64 tiles at a time,
+     * on other shapes every mine adds one to each of its neighbors.
+     */
+    private void calculateNumbers() {
+        if (topology.getShape() != Topology.Shape.SQUARE) {
+            Arrays.fill(numbers, (byte) 0);
+            for (int w = 0; w < mineBits.length; w++) {
+                for (long word = mineBits[w]; word != 0; word &= word - 1) {
+                    int mine = (w << 6) + Long.numberOfTrailingZeros(word);
+                    for (int offset : topology.offsets(mine)) {
+                        numbers[mine + offset]++;
+                    }
+                }
+            }
+            for (int w = 0; w < mineBits.length; w++) {
+                for (long word = mineBits[w]; word != 0; word &= word - 1) {
+                    numbers[(w << 6) + Long.numberOfTrailingZeros(word)] = 0; // Tiles with a mine always get 0
+                }
+            }
+            return;
+        }
+
+        int words = NeighborCounter.wordsPerRow(cols);
+        if (rowMasks == null) {
+            rowMasks = new long[rows * words];
+        }
+
+        for (int r = 0; r < rows; r++) {
+            for (int w = 0; w < words; w++) {
+                int length = Math.min(64, cols - (w << 6));
+                rowMasks[r * words + w] = getBits(mineBits, r * cols + (w << 6), length);
+            }
+        }
+        NeighborCounter.count(rowMasks, rows, cols, numbers);
+    }
+
+    /**
+     * Reads up to 64 consecutive bits from a bit set.
+     * @param start The index of the first bit.
+     * @param length The amount of bits to read (1 - 64).
+     */
+    private static long getBits(long[] bits, int start, int length) {
+        int word = start >>> 6;
+        int offset = start & 63;
+        long value = bits[word] >>> offset;
+        if (offset != 0 && word + 1 < bits.length) {
+            value |= bits[word + 1] << (64 - offset);
+        }
+        return length == 64 ? value : value & ((1L << length) - 1);
+    }
+
+    /**
+     * Reveals a tile. If the tile doesn't have any adjacent mines, the surrounding tiles are revealed as well.
+     * Flagged tiles are never revealed.
+     * @param r The row of the tile.
+     * @param c The column of the tile.
+     * @return The tiles that were revealed by this call. The list is reused by the next call to reveal().
+     */
+    public CellList reveal(int r, int c) {
+        return reveal(index(r, c));
+    }
+
+    /**
+     * Reveals a tile. If the tile doesn't have any adjacent mines, the surrounding tiles are revealed as well.
+     * Flagged tiles are never revealed.
+     * @param start The index of the tile.
+     * @return The tiles that were revealed by this call. The list is reused by the next call to reveal().
+     */
+    public CellList reveal(int start) {
+        revealedCells.clear();
+        if (get(flagBits, start) || get(revealedBits, start)) {
+            return revealedCells;
+        }
+
+        set(revealedBits, start, true);
+        revealedCells.add(start);
+        if (get(mineBits, start)) {
+            return revealedCells;
+        }
+        revealedSafeCells++;
+        if (numbers[start] != 0) {
+            return revealedCells;
+        }
+
+        revealSurroundingTiles();
+        return revealedCells;
+    }
+
+    /**
+     * Reveals all tiles that should be revealed, starting from the blank tiles already in revealedCells.
+     * Reveals all adjacent tiles until it reaches a tile with a number (tile with adjacent mine).
+     * The list of revealed tiles is used as the queue, so each tile is visited at most once.
+     */
+    private void revealSurroundingTiles() {
+        for (int head = 0; head < revealedCells.size(); head++) {
+            int i = revealedCells.get(head);
+            if (numbers[i] != 0) {
+                continue;
+            }
+
+            for (int offset : topology.offsets(i)) {
+                int n = i + offset;
+                if (get(revealedBits, n) || get(flagBits, n)) {
+                    continue;
+                }
+                set(revealedBits, n, true);
+                revealedCells.add(n);
+                revealedSafeCells++; // Tiles next to a blank tile never have a mine
+            }
+        }
+    }
+
+    /**
+     * @return The amount of revealed tiles that don't have a mine.
+     */
+    public int getRevealedSafeCells() {
+        return revealedSafeCells;
+    }
+
+    /**
+     * Determines if the board has been completed.
+     * Uses the running count of revealed tiles, so it doesn't scan the board.
+     * With assertions enabled (-ea) the count is checked against a full scan.
+     * @return if all tiles without a mine have been revealed.
+     */
+    public boolean hasWin() {
+        assert revealedSafeCells == countRevealedSafeCells()
+                : "Revealed tile count " + revealedSafeCells + " doesn't match board (" + countRevealedSafeCells() + ")";
+        return revealedSafeCells == cells - mines;
+    }
+
+    /**
+     * Counts the revealed tiles without a mine by scanning the whole board.
+     */
+    private int countRevealedSafeCells() {
+        int count = 0;
+        for (int i = 0; i < revealedBits.length; i++) {
+            count += Long.bitCount(revealedBits[i] & ~mineBits[i]);
+        }
+        return count;
+    }
+
+    private static boolean get(long[] bits, int i) {
+        return (bits[i >>> 6] & (1L << i)) != 0;
+    }
+
+    private static void set(long[] bits, int i, boolean value) {
+        if (value) {
+            bits[i >>> 6] |= 1L << i;
+        } else {
+            bits[i >>> 6] &= ~(1L << i);
+        }
+    }
+}
@@ -0,0 +1,305 @@
+package com.github.AndrewAlbizati;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.zip.CRC32;
+
+/**
+ * Writes the size and mines of a board in as few bytes as possible, and as a short text code that can be shared.
+ *
+ * Binary format:
+ *   varint rows, varint columns, varint mines, byte encoding
+ *   BITMAP: one bit per tile, (rows * columns + 7) / 8 bytes, in the order of the tile indices
+ *   GAPS:   byte k, then for every mine the amount of tiles without a mine before it (since the previous mine),
+ *           Rice coded with parameter k: the gap divided by 2^k in unary, then its k lowest bits. Most significant bit first.
+ * Whichever encoding is smaller is used. Rice coding gets close to the entropy of randomly placed mines,
+ * an Expert board takes about 51 bytes.
+ *
+ * The text code is the bytes followed by the lowest 2 bytes of their CRC32, in URL-safe Base64,
+ * so a code that was copied wrong is rejected instead of giving another board.
+ */
+public final class BoardCodec {
+    private static final byte BITMAP = 0;
+    private static final byte GAPS = 1;
+    private static final int MAX_RICE_PARAMETER = 30;
+
+    private BoardCodec() {
+    }
+
+    /**
+     * The size and mines of a board.
+     * @param mineBits The mines in the format of Board.copyMines().
+     */
+    public record Layout(int rows, int cols, int mines, long[] mineBits) {
+        /**
+         * @return A board with these mines and every tile hidden.
+         */
+        public Board toBoard() {
+            Board board = new Board(rows, cols, mines);
+            board.setMines(mineBits);
+            return board;
+        }
+    }
+
+    /**
+     * @param board A board whose mines have been placed.
+     * @return The size and mines of the board, in the binary format.
+     */
+    public static byte[] encode(Board board) {
+        return encode(board.getRows(), board.getColumns(), board.copyMines());
+    }
+
+    /**
+     * @param rows The amount of rows on the board.
+     * @param cols The amount of columns on the board.
+     * @param mineBits The mines in the format of Board.copyMines().
+     * @return The size and mines of the board, in the binary format.
+     */
+    public static byte[] encode(int rows, int cols, long[] mineBits) {
+        int tiles = rows * cols;
+        int mines = 0;
+        for (long word : mineBits) {
+            mines += Long.bitCount(word);
+        }
+
+        int bitmapBytes = (tiles + 7) >>> 3;
+        ByteBuffer out = ByteBuffer.allocate(3 * 5 + 1 + bitmapBytes); // Gaps are only used if they are smaller than the bitmap
+        Replay.writeVarint(out, rows);
+        Replay.writeVarint(out, cols);
+        Replay.writeVarint(out, mines);
+
+        // Choose the Rice parameter that gives the fewest bits, it is close to log2 of the average gap
+        int k = 0;
+        long gapBits = Long.MAX_VALUE;
+        if (mines > 0) {
+            int estimate = 31 - Integer.numberOfLeadingZeros(Math.max(tiles / mines, 1));
+            for (int candidate = Math.max(estimate - 2, 0); candidate <= Math.min(estimate + 1, MAX_RICE_PARAMETER); candidate++) {
+                long bits = riceBits(mineBits, candidate);
+                if (bits < gapBits) {
+                    gapBits = bits;
+                    k = candidate;
+                }
+            }
+        }
+
+        if (mines == 0 || 1 + (gapBits + 7) / 8 >= bitmapBytes) {
+            out.put(BITMAP);
+            for (int i = 0; i < bitmapBytes; i++) {
+                out.put((byte) (mineBits[i >>> 3] >>> ((i & 7) << 3)));
+            }
+            return Arrays.copyOf(out.array(), out.position());
+        }
+
+        out.put(GAPS);
+        out.put((byte) k);
+        BitWriter writer = new BitWriter(out);
+        int previous = -1;
+        for (int word = 0; word < mineBits.length; word++) {
+            long bits = mineBits[word];
+            while (bits != 0) {
+                int cell = (word << 6) + Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+                int gap = cell - previous - 1;
+                previous = cell;
+
+                for (int q = gap >>> k; q > 0; q--) {
+                    writer.write(1, 1);
+                }
+                writer.write(0, 1);
+                writer.write(gap, k);
+            }
+        }
+        writer.flush();
+        return Arrays.copyOf(out.array(), out.position());
+    }
+
+    private static long riceBits(long[] mineBits, int k) {
+        long bits = 0;
+        int previous = -1;
+        for (int word = 0; word < mineBits.length; word++) {
+            long w = mineBits[word];
+            while (w != 0) {
+                int cell = (word << 6) + Long.numberOfTrailingZeros(w);
+                w &= w - 1;
+                bits += ((cell - previous - 1) >>> k) + 1 + k;
+                previous = cell;
+            }
+        }
+        return bits;
+    }
+
+    /**
+     * @param data A board in the binary format.
+     * @return The board.
+     * @throws IOException If the data isn't a valid board.
+     */
+    public static Layout decode(byte[] data) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        Layout layout = decode(buffer);
+        if (buffer.hasRemaining()) {
+            throw new IOException("Unexpected data after the board");
+        }
+        return layout;
+    }
+
+    /**
+     * Reads a board in the binary format, starting at the position of the buffer. The position is moved past it.
+     * @param buffer The data.
+     * @return The board.
+     * @throws IOException If the data isn't a valid board.
+     */
+    public static Layout decode(ByteBuffer buffer) throws IOException {
+        try {
+            int rows = (int) Replay.readVarint(buffer);
+            int cols = (int) Replay.readVarint(buffer);
+            int mines = (int) Replay.readVarint(buffer);
+            if (rows <= 0 || cols <= 0 || (long) rows * cols > Integer.MAX_VALUE - 63 || mines < 0 || mines >= rows * cols) {
+                throw new IOException("Invalid board size");
+            }
+            int tiles = rows * cols;
+            long[] mineBits = new long[(tiles + 63) >>> 6];
+
+            byte encoding = buffer.get();
+            if (encoding == BITMAP) {
+                for (int i = 0; i < (tiles + 7) >>> 3; i++) {
+                    mineBits[i >>> 3] |= (buffer.get() & 0xFFL) << ((i & 7) << 3);
+                }
+            } else if (encoding == GAPS) {
+                int k = buffer.get();
+                if (k < 0 || k > MAX_RICE_PARAMETER) {
+                    throw new IOException("Invalid Rice parameter " + k);
+                }
+                BitReader reader = new BitReader(buffer);
+                long cell = -1;
+                for (int i = 0; i < mines; i++) {
+                    long quotient = 0;
+                    while (reader.read(1) == 1) {
+                        if (++quotient > tiles) {
+                            throw new IOException("Invalid gap");
+                        }
+                    }
+                    cell += (quotient << k | reader.read(k)) + 1;
+                    if (cell >= tiles) {
+                        throw new IOException("Mine outside the board");
+                    }
+                    mineBits[(int) cell >>> 6] |= 1L << cell;
+                }
+            } else {
+                throw new IOException("Unknown board encoding " + encoding);
+            }
+
+            int count = 0;
+            for (long word : mineBits) {
+                count += Long.bitCount(word);
+            }
+            if (count != mines || (tiles & 63) != 0 && mineBits[mineBits.length - 1] >>> (tiles & 63) != 0) {
+                throw new IOException("The mines don't match the board");
+            }
+            return new Layout(rows, cols, mines, mineBits);
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Unexpected end of board", e);
+        }
+    }
+
+    /**
+     * @param board A board whose mines have been placed.
+     * @return A text code for the board, see fromCode().
+     */
+    public static String toCode(Board board) {
+        byte[] data = encode(board);
+        byte[] withCheck = new byte[data.length + 2];
+        System.arraycopy(data, 0, withCheck, 0, data.length);
+        int check = check(data, data.length);
+        withCheck[data.length] = (byte) (check >>> 8);
+        withCheck[data.length + 1] = (byte) check;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(withCheck);
+    }
+
+    /**
+     * @param code A code from toCode(), spaces and line breaks are ignored.
+     * @return The board.
+     * @throws IOException If the code isn't valid, for example because it wasn't copied completely.
+     */
+    public static Layout fromCode(String code) throws IOException {
+        byte[] withCheck;
+        try {
+            withCheck = Base64.getUrlDecoder().decode(code.replaceAll("\\s", ""));
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Not a board code", e);
+        }
+        if (withCheck.length < 3) {
+            throw new IOException("Not a board code");
+        }
+
+        int length = withCheck.length - 2;
+        int check = (withCheck[length] & 0xFF) << 8 | (withCheck[length + 1] & 0xFF);
+        if (check != check(withCheck, length)) {
+            throw new IOException("The board code is incomplete or mistyped");
+        }
+        return decode(ByteBuffer.wrap(withCheck, 0, length).slice());
+    }
+
+    private static int check(byte[] data, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(data, 0, length);
+        return (int) crc.getValue() & 0xFFFF;
+    }
+
+    /**
+     * Writes bits to a stream, most significant bit first.
+     */
+    private static class BitWriter {
+        private final ByteBuffer out;
+        private long buffer = 0;
+        private int count = 0;
+
+        private BitWriter(ByteBuffer out) {
+            this.out = out;
+        }
+
+        /**
+         * @param value Its lowest bits are written.
+         * @param bits The amount of bits written, at most 32.
+         */
+        private void write(long value, int bits) {
+            buffer = buffer << bits | (value & ((1L << bits) - 1));
+            count += bits;
+            while (count >= 8) {
+                count -= 8;
+                out.put((byte) (buffer >>> count));
+            }
+        }
+
+        private void flush() {
+            if (count > 0) {
+                out.put((byte) (buffer << (8 - count)));
+                count = 0;
+            }
+        }
+    }
+
+    /**
+     * Reads bits written by BitWriter.
+     */
+    private static class BitReader {
+        private final ByteBuffer in;
+        private long buffer = 0;
+        private int count = 0;
+
+        private BitReader(ByteBuffer in) {
+            this.in = in;
+        }
+
+        private long read(int bits) {
+            while (count < bits) {
+                buffer = buffer << 8 | (in.get() & 0xFF);
+                count += 8;
+            }
+            count -= bits;
+            return (buffer >>> count) & ((1L << bits) - 1);
+        }
+    }
+}
@@ -0,0 +1,256 @@
+package com.github.AndrewAlbizati;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * A file with a fixed set of boards, for example millions of boards that every solver is tested on.
+ * The file is memory-mapped and has an index, so any board can be read without reading the ones before it,
+ * and only the parts of the file that are used are loaded.
+ *
+ * File format, big-endian:
+ *   int magic "MSBC", int version
+ *   the boards, one after the other, each in the binary format of BoardCodec
+ *   the index: long offset from the start of the file of every board
+ *   long amount of boards, long offset of the index
+ *
+ * Usage: BoardCorpus --out FILE [--boards N] [--difficulty NAME] [--seed N] [--no-guess]
+ */
+public class BoardCorpus implements Closeable {
+    public static final String EXTENSION = ".msbc";
+
+    private static final int MAGIC = 0x4D534243; // "MSBC"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 8;
+    private static final int FOOTER_SIZE = 16;
+
+    private final MappedByteBuffer data;
+    private final MappedByteBuffer index;
+    private final long size;
+
+    private BoardCorpus(MappedByteBuffer data, MappedByteBuffer index, long size) {
+        this.data = data;
+        this.index = index;
+        this.size = size;
+    }
+
+    /**
+     * Maps a corpus into memory.
+     * @param path A file written by a Writer.
+     * @return The corpus.
+     * @throws IOException If the file can't be read or isn't a corpus.
+     */
+    public static BoardCorpus open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            if (fileSize < HEADER_SIZE + FOOTER_SIZE) {
+                throw new IOException("Not a board corpus");
+            }
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            ByteBuffer footer = ByteBuffer.allocate(FOOTER_SIZE);
+            readFully(channel, header, 0);
+            readFully(channel, footer, fileSize - FOOTER_SIZE);
+            if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+                throw new IOException("Not a board corpus");
+            }
+            long size = footer.getLong(0);
+            long indexOffset = footer.getLong(8);
+            if (size < 0 || indexOffset < HEADER_SIZE || indexOffset + size * Long.BYTES != fileSize - FOOTER_SIZE) {
+                throw new IOException("The board corpus is damaged");
+            }
+
+            // A single mapping can't be larger than 2 GB, the boards and the index are mapped separately
+            if (indexOffset > Integer.MAX_VALUE || size * Long.BYTES > Integer.MAX_VALUE) {
+                throw new IOException("The board corpus is too large, split it into several files");
+            }
+            MappedByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, 0, indexOffset);
+            MappedByteBuffer index = channel.map(FileChannel.MapMode.READ_ONLY, indexOffset, size * Long.BYTES);
+            return new BoardCorpus(data, index, size);
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of file");
+            }
+        }
+    }
+
+    /**
+     * @return The amount of boards.
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Reads one board. Safe to call from many threads at the same time.
+     * @param i The number of the board, from 0 to size() - 1.
+     * @return The board.
+     * @throws IOException If the board is damaged.
+     */
+    public BoardCodec.Layout get(long i) throws IOException {
+        if (i < 0 || i >= size) {
+            throw new IndexOutOfBoundsException("Board " + i + " of " + size);
+        }
+        long offset = index.getLong((int) (i * Long.BYTES));
+        if (offset < HEADER_SIZE || offset >= data.limit()) {
+            throw new IOException("The index of board " + i + " is damaged");
+        }
+        return BoardCodec.decode(data.duplicate().position((int) offset));
+    }
+
+    /**
+     * Releases the corpus. The memory is unmapped once the corpus is garbage collected.
+     */
+    @Override
+    public void close() {
+        // Nothing to close, the channel was closed once the file was mapped
+    }
+
+    /**
+     * Writes a corpus one board at a time. The file is written next to the path and only moved there by commit(),
+     * closing a writer that wasn't committed deletes it and leaves the file at the path as it was.
+     */
+    public static class Writer implements Closeable {
+        private final Path path;
+        private final Path temp;
+        private final DataOutputStream out;
+        private long position = HEADER_SIZE;
+        private long[] offsets = new long[1024];
+        private int size = 0;
+        private boolean committed = false;
+
+        /**
+         * @param path The file, replaced once the writer is committed.
+         */
+        public Writer(Path path) throws IOException {
+            this.path = path;
+            this.temp = path.resolveSibling(path.getFileName() + ".tmp");
+            this.out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp), 1 << 16));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+        }
+
+        /**
+         * Adds a board to the end of the corpus.
+         * @param board A board whose mines have been placed.
+         */
+        public void add(Board board) throws IOException {
+            if (size == offsets.length) {
+                offsets = Arrays.copyOf(offsets, size * 2);
+            }
+            byte[] encoded = BoardCodec.encode(board);
+            offsets[size++] = position;
+            out.write(encoded);
+            position += encoded.length;
+        }
+
+        /**
+         * Writes the index and moves the file into place. No boards can be added afterwards.
+         */
+        public void commit() throws IOException {
+            if (committed) {
+                return;
+            }
+            long indexOffset = position;
+            for (int i = 0; i < size; i++) {
+                out.writeLong(offsets[i]);
+            }
+            out.writeLong(size);
+            out.writeLong(indexOffset);
+            out.close();
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            committed = true;
+        }
+
+        /**
+         * Deletes the unfinished file if the writer wasn't committed, for example because writing a board failed.
+         */
+        @Override
+        public void close() throws IOException {
+            if (committed) {
+                return;
+            }
+            try {
+                out.close();
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        }
+    }
+
+    /**
+     * Writes a corpus of boards of one difficulty. Every board has its mines placed the way a game does
+     * when the first tile revealed is the center of the board, so a player starting in the center never loses
+     * on the first click.
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        Path out = null;
+        long boards = 1_000_000;
+        String difficultyName = "EXPERT";
+        long seed = new Random().nextLong();
+        boolean noGuess = false;
+
+        try {
+            for (int i = 0; i < args.length; i++) {
+                String value = i + 1 < args.length ? args[i + 1] : "";
+                switch (args[i]) {
+                    case "--out" -> out = Path.of(value);
+                    case "--boards" -> boards = Long.parseLong(value);
+                    case "--difficulty" -> difficultyName = value.toUpperCase(Locale.ROOT);
+                    case "--seed" -> seed = Long.parseLong(value);
+                    case "--no-guess" -> {
+                        noGuess = true;
+                        continue;
+                    }
+                    default -> throw new IllegalArgumentException("Unknown option: " + args[i]);
+                }
+                i++;
+            }
+            Difficulties.valueOf(difficultyName);
+            if (out == null || boards <= 0 || boards > Integer.MAX_VALUE / Long.BYTES) {
+                throw new IllegalArgumentException("--out is required and --boards must be positive");
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println("Usage: BoardCorpus --out FILE [--boards N] [--difficulty NAME] [--seed N] [--no-guess]");
+            System.exit(1);
+            return;
+        }
+
+        Difficulties difficulty = Difficulties.valueOf(difficultyName);
+        NoGuessGenerator generator = noGuess ? new NoGuessGenerator() : null;
+        Board board = new Board(difficulty.rows, difficulty.columns, difficulty.mines);
+        long startTime = System.nanoTime();
+        try (Writer writer = new Writer(out)) {
+            for (long i = 0; i < boards; i++) {
+                long boardSeed = Simulator.gameSeed(seed, difficulty, i);
+                if (generator != null) {
+                    writer.add(generator.generate(difficulty.rows, difficulty.columns, difficulty.mines, boardSeed));
+                } else {
+                    board.clear();
+                    GameEngine.placeMines(board, boardSeed, NoGuessGenerator.getStartRow(board), NoGuessGenerator.getStartColumn(board));
+                    writer.add(board);
+                }
+            }
+            writer.commit();
+        }
+        System.out.printf(Locale.ROOT, "Wrote %d %s boards to %s (%d bytes) in %.1f s%n", boards, difficulty.name(),
+                out, Files.size(out), (System.nanoTime() - startTime) / 1e9);
+    }
+}
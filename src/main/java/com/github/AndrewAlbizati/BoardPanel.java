@@ -0,0 +1,303 @@
+package com.github.AndrewAlbizati;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.image.BufferedImage;
+
+/**
+ * Draws a board as a single component, meant to be placed inside a JScrollPane.
+ * Only the tiles inside the visible area are painted, each one by copying a pre-rendered image,
+ * so painting costs the same no matter how large the board is.
+ */
+public class BoardPanel extends JComponent implements Scrollable {
+    public static final int TILE_SIZE = TileGlyphs.TILE_SIZE;
+    private static final Color HIGHLIGHT_COLOR = new Color(255, 200, 0);
+    private static final Color[] PROBABILITY_COLORS = new Color[21]; // From green for 0% to red for 100%, in steps of 5%
+    static {
+        for (int i = 0; i < PROBABILITY_COLORS.length; i++) {
+            float p = i / (PROBABILITY_COLORS.length - 1f);
+            PROBABILITY_COLORS[i] = new Color(Math.min(1, 2 * p), Math.min(1, 2 * (1 - p)), 0, 0.45f);
+        }
+    }
+
+    /**
+     * Receives the mouse clicks made on tiles.
+     */
+    public interface TileListener {
+        /**
+         * Called when a mouse button is pressed and released on the same tile.
+         * @param row The row of the tile.
+         * @param col The column of the tile.
+         * @param e The mouse release event.
+         */
+        void tileClicked(int row, int col, MouseEvent e);
+    }
+
+    private final Board board;
+    private TileListener tileListener;
+    private Runnable paintListener;
+    private boolean showAll = false;
+    private int highlightedCell = -1;
+    private MineProbabilities.Result probabilities = null;
+
+    /**
+     * @param board The board that will be drawn.
+     */
+    public BoardPanel(Board board) {
+        this.board = board;
+        this.setOpaque(true);
+        this.setPreferredSize(new Dimension(board.getColumns() * TILE_SIZE, board.getRows() * TILE_SIZE));
+
+        MouseAdapter mouseAdapter = new MouseAdapter() {
+            int pressedCell = -1;
+
+            @Override
+            public void mousePressed(MouseEvent e) {
+                pressedCell = cellAt(e.getX(), e.getY());
+            }
+
+            @Override
+            public void mouseReleased(MouseEvent e) {
+                int cell = cellAt(e.getX(), e.getY());
+                if (cell != -1 && cell == pressedCell && tileListener != null) {
+                    tileListener.tileClicked(board.getRow(cell), board.getColumn(cell), e);
+                }
+                pressedCell = -1;
+            }
+        };
+        this.addMouseListener(mouseAdapter);
+    }
+
+    public void setTileListener(TileListener tileListener) {
+        this.tileListener = tileListener;
+    }
+
+    /**
+     * @param paintListener Called after every time the board is painted, null for none.
+     */
+    public void setPaintListener(Runnable paintListener) {
+        this.paintListener = paintListener;
+    }
+
+    /**
+     * Shows every tile to the player, used when the game has ended.
+     * Mines are drawn as bombs, other tiles are drawn with their number.
+     */
+    public void revealAll() {
+        showAll = true;
+        repaint();
+    }
+
+    /**
+     * Stops showing every tile after revealAll(), used when a finished game is continued by undoing its last move.
+     */
+    public void hideAll() {
+        showAll = false;
+        repaint();
+    }
+
+    /**
+     * Colors every hidden tile by its chance of having a mine, the exact chance is shown in its tooltip.
+     * @param probabilities The chances, null to stop coloring the tiles.
+     */
+    public void setProbabilities(MineProbabilities.Result probabilities) {
+        if (this.probabilities == null && probabilities == null) {
+            return;
+        }
+        this.probabilities = probabilities;
+        setToolTipText(probabilities == null ? null : "");
+        repaint();
+    }
+
+    @Override
+    public String getToolTipText(MouseEvent e) {
+        int cell = cellAt(e.getX(), e.getY());
+        if (probabilities == null || cell == -1 || board.isRevealed(board.getRow(cell), board.getColumn(cell))) {
+            return null;
+        }
+        float probability = probabilities.get(cell);
+        if (Float.isNaN(probability)) {
+            return "Too many possibilities to count";
+        }
+        return String.format("%.1f%% chance of a bomb", probability * 100);
+    }
+
+    /**
+     * Hides the tiles again after revealAll() and removes the highlight, used when the board is reused for a new game.
+     */
+    public void reset() {
+        showAll = false;
+        highlightedCell = -1;
+        probabilities = null;
+        setToolTipText(null);
+        scrollRectToVisible(new Rectangle(0, 0, 1, 1));
+        repaint();
+    }
+
+    /**
+     * Draws a border around a tile to point it out to the player, and scrolls it into view.
+     * @param cell The index of the tile, -1 to remove the highlight.
+     */
+    public void setHighlightedCell(int cell) {
+        if (highlightedCell != -1) {
+            repaint(tileBounds(highlightedCell));
+        }
+        highlightedCell = cell;
+        if (cell != -1) {
+            Rectangle bounds = tileBounds(cell);
+            scrollRectToVisible(bounds);
+            repaint(bounds);
+        }
+    }
+
+    private Rectangle tileBounds(int cell) {
+        return new Rectangle(board.getColumn(cell) * TILE_SIZE, board.getRow(cell) * TILE_SIZE, TILE_SIZE, TILE_SIZE);
+    }
+
+    /**
+     * Repaints the area covered by the changed tiles.
+     * @param changedCells The indices of the tiles that changed.
+     */
+    public void repaintCells(CellList changedCells) {
+        if (changedCells.isEmpty()) {
+            return;
+        }
+
+        int minRow = Integer.MAX_VALUE;
+        int maxRow = Integer.MIN_VALUE;
+        int minCol = Integer.MAX_VALUE;
+        int maxCol = Integer.MIN_VALUE;
+        for (int i = 0; i < changedCells.size(); i++) {
+            int cell = changedCells.get(i);
+            int r = board.getRow(cell);
+            int c = board.getColumn(cell);
+            minRow = Math.min(minRow, r);
+            maxRow = Math.max(maxRow, r);
+            minCol = Math.min(minCol, c);
+            maxCol = Math.max(maxCol, c);
+        }
+        repaint(minCol * TILE_SIZE, minRow * TILE_SIZE, (maxCol - minCol + 1) * TILE_SIZE, (maxRow - minRow + 1) * TILE_SIZE);
+    }
+
+    /**
+     * Converts a point on the panel to the index of the tile under it.
+     * @return The index of the tile, -1 if the point isn't on the board.
+     */
+    public int cellAt(int x, int y) {
+        if (x < 0 || y < 0) {
+            return -1;
+        }
+        int c = x / TILE_SIZE;
+        int r = y / TILE_SIZE;
+        if (r >= board.getRows() || c >= board.getColumns()) {
+            return -1;
+        }
+        return board.index(r, c);
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        GameEvents.PaintEvent event = new GameEvents.PaintEvent();
+        event.begin();
+
+        Rectangle clip = g.getClipBounds();
+        if (clip == null) {
+            clip = new Rectangle(0, 0, getWidth(), getHeight());
+        }
+
+        g.setColor(TileGlyphs.HIDDEN_COLOR);
+        g.fillRect(clip.x, clip.y, clip.width, clip.height);
+
+        // Only draw the tiles that intersect the area being painted
+        int firstRow = Math.max(clip.y / TILE_SIZE, 0);
+        int lastRow = Math.min((clip.y + clip.height - 1) / TILE_SIZE, board.getRows() - 1);
+        int firstCol = Math.max(clip.x / TILE_SIZE, 0);
+        int lastCol = Math.min((clip.x + clip.width - 1) / TILE_SIZE, board.getColumns() - 1);
+
+        for (int r = firstRow; r <= lastRow; r++) {
+            for (int c = firstCol; c <= lastCol; c++) {
+                g.drawImage(glyphFor(r, c), c * TILE_SIZE, r * TILE_SIZE, null);
+            }
+        }
+
+        if (probabilities != null && !showAll) {
+            paintProbabilities(g, firstRow, lastRow, firstCol, lastCol);
+        }
+
+        if (highlightedCell != -1) {
+            Rectangle bounds = tileBounds(highlightedCell);
+            g.setColor(HIGHLIGHT_COLOR);
+            for (int i = 0; i < 3; i++) {
+                g.drawRect(bounds.x + i, bounds.y + i, bounds.width - 1 - 2 * i, bounds.height - 1 - 2 * i);
+            }
+        }
+
+        event.paintedTiles = Math.max(lastRow - firstRow + 1, 0) * Math.max(lastCol - firstCol + 1, 0);
+        event.commit();
+        if (paintListener != null) {
+            paintListener.run();
+        }
+    }
+
+    private void paintProbabilities(Graphics g, int firstRow, int lastRow, int firstCol, int lastCol) {
+        for (int r = firstRow; r <= lastRow; r++) {
+            for (int c = firstCol; c <= lastCol; c++) {
+                if (board.isRevealed(r, c) || board.isFlagged(r, c)) {
+                    continue;
+                }
+                float probability = probabilities.get(board.index(r, c));
+                if (Float.isNaN(probability)) {
+                    continue;
+                }
+                g.setColor(PROBABILITY_COLORS[Math.round(probability * (PROBABILITY_COLORS.length - 1))]);
+                g.fillRect(c * TILE_SIZE + 3, r * TILE_SIZE + 3, TILE_SIZE - 6, TILE_SIZE - 6);
+            }
+        }
+    }
+
+    /**
+     * @return The pre-rendered image that shows the current state of a tile.
+     */
+    private BufferedImage glyphFor(int r, int c) {
+        if (board.isRevealed(r, c) || showAll) {
+            if (board.hasMine(r, c)) {
+                return TileGlyphs.bomb();
+            }
+            return TileGlyphs.number(board.getNumber(r, c));
+        }
+        if (board.isFlagged(r, c)) {
+            return TileGlyphs.flag();
+        }
+        return TileGlyphs.hidden();
+    }
+
+    @Override
+    public Dimension getPreferredScrollableViewportSize() {
+        Dimension preferred = getPreferredSize();
+        Dimension screen = Toolkit.getDefaultToolkit().getScreenSize();
+        return new Dimension(Math.min(preferred.width, screen.width * 3 / 4), Math.min(preferred.height, screen.height * 3 / 4));
+    }
+
+    @Override
+    public int getScrollableUnitIncrement(Rectangle visibleRect, int orientation, int direction) {
+        return TILE_SIZE;
+    }
+
+    @Override
+    public int getScrollableBlockIncrement(Rectangle visibleRect, int orientation, int direction) {
+        int extent = orientation == SwingConstants.VERTICAL ? visibleRect.height : visibleRect.width;
+        return Math.max(extent - TILE_SIZE, TILE_SIZE);
+    }
+
+    @Override
+    public boolean getScrollableTracksViewportWidth() {
+        return false;
+    }
+
+    @Override
+    public boolean getScrollableTracksViewportHeight() {
+        return false;
+    }
+}
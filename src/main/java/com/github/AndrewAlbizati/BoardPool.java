@@ -0,0 +1,114 @@
+package com.github.AndrewAlbizati;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Keeps a few boards without guessing ready for each difficulty, so a game can start without waiting.
+ * Once started, a background thread per difficulty refills its pool whenever a board is taken.
+ * The pools are filled by a generator whose threads have the lowest priority, so they don't slow down the game
+ * being played, and a board needed while a pool is empty is generated by a generator of its own.
+ */
+public class BoardPool {
+    private static final int CAPACITY = 3;
+
+    private static BoardPool instance = null;
+
+    private final NoGuessGenerator generator = new NoGuessGenerator(Runtime.getRuntime().availableProcessors(), Thread.MIN_PRIORITY);
+    private final NoGuessGenerator urgentGenerator = new NoGuessGenerator();
+    private final ExecutorService taker = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "board-pool-take");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Map<Difficulties, BlockingQueue<Board>> pools = new EnumMap<>(Difficulties.class);
+    private final Random rand = new Random();
+    private ExecutorService fillers = null;
+
+    private BoardPool() {
+        for (Difficulties difficulty : Difficulties.values()) {
+            pools.put(difficulty, new ArrayBlockingQueue<>(CAPACITY));
+        }
+    }
+
+    /**
+     * @return The pool shared by the whole program.
+     */
+    public static synchronized BoardPool getInstance() {
+        if (instance == null) {
+            instance = new BoardPool();
+        }
+        return instance;
+    }
+
+    /**
+     * Starts filling the pools in the background. Does nothing if they are already being filled.
+     */
+    public synchronized void start() {
+        if (fillers != null) {
+            return;
+        }
+
+        fillers = Executors.newFixedThreadPool(pools.size(), runnable -> {
+            Thread thread = new Thread(runnable, "board-pool");
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (Difficulties difficulty : Difficulties.values()) {
+            fillers.submit(() -> fill(difficulty));
+        }
+    }
+
+    /**
+     * Generates boards for a difficulty forever, waiting whenever its pool is full.
+     */
+    private void fill(Difficulties difficulty) {
+        BlockingQueue<Board> pool = pools.get(difficulty);
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                pool.put(generator.generate(difficulty.rows, difficulty.columns, difficulty.mines, nextSeed()));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private synchronized long nextSeed() {
+        return rand.nextLong();
+    }
+
+    /**
+     * Takes a board without guessing from the pool. If the pool is empty, one is generated on another thread,
+     * so this can be called from the event dispatch thread.
+     * @param difficulty The difficulty of the board.
+     * @return A board whose tiles are all hidden, completed exceptionally if it couldn't be generated.
+     */
+    public CompletableFuture<Board> take(Difficulties difficulty) {
+        Board board = pools.get(difficulty).poll();
+        if (board != null) {
+            return CompletableFuture.completedFuture(board);
+        }
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return urgentGenerator.generate(difficulty.rows, difficulty.columns, difficulty.mines, nextSeed());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CompletionException(e);
+            }
+        }, taker);
+    }
+
+    /**
+     * @return The amount of boards ready for a difficulty.
+     */
+    public int available(Difficulties difficulty) {
+        return pools.get(difficulty).size();
+    }
+}
@@ -0,0 +1,45 @@
+package com.github.AndrewAlbizati;
+
+/**
+ * What a player can see of a board: its size, the amount of mines, which tiles are revealed or flagged,
+ * and the numbers on revealed tiles. It never tells where the mines are.
+ */
+public interface BoardView {
+    int getRows();
+
+    int getColumns();
+
+    int getMines();
+
+    boolean isRevealed(int r, int c);
+
+    boolean isFlagged(int r, int c);
+
+    /**
+     * @return The amount of mines adjacent to a revealed tile (0 - 8). Only valid for revealed tiles.
+     */
+    int getNumber(int r, int c);
+
+    /**
+     * @param i The index (row * columns + column) of a tile.
+     * @return if the tile is revealed.
+     */
+    default boolean isRevealed(int i) {
+        return isRevealed(i / getColumns(), i % getColumns());
+    }
+
+    /**
+     * @param i The index (row * columns + column) of a tile.
+     * @return if the tile is flagged.
+     */
+    default boolean isFlagged(int i) {
+        return isFlagged(i / getColumns(), i % getColumns());
+    }
+
+    /**
+     * @return Which tiles are next to each other, square unless the board says otherwise.
+     */
+    default Topology getTopology() {
+        return Topology.of(Topology.Shape.SQUARE, getRows(), getColumns());
+    }
+}
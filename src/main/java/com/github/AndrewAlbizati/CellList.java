@@ -0,0 +1,60 @@
+package com.github.AndrewAlbizati;
+
+import java.util.Arrays;
+
+/**
+ * A growable list of tile indices backed by an int array.
+ * Meant to be cleared and reused between moves so that no memory is allocated once it has grown large enough.
+ */
+public class CellList {
+    private int[] cells;
+    private int size = 0;
+
+    public CellList() {
+        this(64);
+    }
+
+    /**
+     * @param capacity The amount of tiles the list can hold before it has to grow.
+     */
+    public CellList(int capacity) {
+        cells = new int[Math.max(capacity, 1)];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @param i The position in the list.
+     * @return The tile index at that position.
+     */
+    public int get(int i) {
+        if (i >= size) {
+            throw new IndexOutOfBoundsException("Index " + i + " out of bounds for size " + size);
+        }
+        return cells[i];
+    }
+
+    public void add(int cell) {
+        if (size == cells.length) {
+            cells = Arrays.copyOf(cells, cells.length * 2);
+        }
+        cells[size++] = cell;
+    }
+
+    /**
+     * Removes all tiles from the list without releasing its memory.
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    public int[] toArray() {
+        return Arrays.copyOf(cells, size);
+    }
+}
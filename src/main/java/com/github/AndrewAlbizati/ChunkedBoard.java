@@ -0,0 +1,352 @@
+package com.github.AndrewAlbizati;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * An endless board that is split into square chunks of CHUNK_SIZE x CHUNK_SIZE tiles.
+ * Whether a tile has a mine depends only on the seed and the tile's position, so a chunk can be
+ * generated the first time it is touched and regenerated whenever it is needed again.
+ * Only a limited amount of chunks are kept in memory. The least recently used chunk is evicted first;
+ * if the player has revealed or flagged any of its tiles, those are written to a spill directory
+ * and read back when the chunk is loaded again.
+ * The tiles around (0, 0) never have mines, so the game can always start there.
+ */
+public class ChunkedBoard implements Closeable {
+    public static final int CHUNK_SIZE = 64;
+    private static final int CHUNK_SHIFT = 6;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    public static final double MIN_DENSITY = 0.15;
+    public static final double MAX_DENSITY = 0.5;
+
+    /**
+     * The tiles of one chunk. Each row of the chunk is stored in a single long.
+     */
+    private static final class Chunk {
+        final long[] mines = new long[CHUNK_SIZE];
+        final long[] revealed = new long[CHUNK_SIZE];
+        final long[] flags = new long[CHUNK_SIZE];
+        final byte[] numbers = new byte[CHUNK_SIZE * CHUNK_SIZE];
+        boolean touched = false;
+    }
+
+    private final long seed;
+    private final long mineThreshold;
+    private final int maxChunks;
+    private final Path spillDirectory;
+
+    private final LinkedHashMap<Long, Chunk> chunks;
+    private long lastKey = Long.MIN_VALUE;
+    private Chunk lastChunk = null;
+
+    private long revealedSafeCells = 0;
+    private int chunksGenerated = 0;
+
+    // Reused between calls to reveal(), holds packed (row, column) pairs
+    private long[] revealedCells = new long[64];
+    private int revealedSize = 0;
+
+    /**
+     * @param seed The seed used to place the mines.
+     * @param density The chance of a tile having a mine, between MIN_DENSITY and MAX_DENSITY.
+     * @param maxChunks The most chunks that are kept in memory at once.
+     * @throws IOException If the spill directory can't be created.
+     */
+    public ChunkedBoard(long seed, double density, int maxChunks) throws IOException {
+        if (density < MIN_DENSITY || density > MAX_DENSITY) {
+            throw new IllegalArgumentException("Density must be between " + MIN_DENSITY + " and " + MAX_DENSITY);
+        }
+        if (maxChunks < 9) {
+            throw new IllegalArgumentException("At least 9 chunks must fit in memory");
+        }
+
+        this.seed = seed;
+        this.mineThreshold = (long) (density * (1L << 53));
+        this.maxChunks = maxChunks;
+        this.spillDirectory = Files.createTempDirectory("minesweeper-endless");
+        this.chunks = new LinkedHashMap<>(maxChunks * 2, 0.75f, true);
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * @return The amount of tiles without a mine that have been revealed.
+     */
+    public long getRevealedSafeCells() {
+        return revealedSafeCells;
+    }
+
+    /**
+     * @return The amount of chunks currently held in memory.
+     */
+    public int getLoadedChunks() {
+        return chunks.size();
+    }
+
+    /**
+     * @return The amount of times a chunk has been generated, including regenerating evicted chunks.
+     */
+    public int getChunksGenerated() {
+        return chunksGenerated;
+    }
+
+    public boolean hasMine(int r, int c) {
+        return (chunk(r, c).mines[r & CHUNK_MASK] & (1L << c)) != 0;
+    }
+
+    public boolean isRevealed(int r, int c) {
+        return (chunk(r, c).revealed[r & CHUNK_MASK] & (1L << c)) != 0;
+    }
+
+    public boolean isFlagged(int r, int c) {
+        return (chunk(r, c).flags[r & CHUNK_MASK] & (1L << c)) != 0;
+    }
+
+    /**
+     * @return The amount of mines adjacent to the tile (0 - 8).
+     */
+    public int getNumber(int r, int c) {
+        return chunk(r, c).numbers[((r & CHUNK_MASK) << CHUNK_SHIFT) | (c & CHUNK_MASK)];
+    }
+
+    /**
+     * Places or removes a flag on a hidden tile.
+     * @return if the board changed.
+     */
+    public boolean toggleFlag(int r, int c) {
+        Chunk chunk = chunk(r, c);
+        long bit = 1L << c;
+        if ((chunk.revealed[r & CHUNK_MASK] & bit) != 0) {
+            return false;
+        }
+        chunk.flags[r & CHUNK_MASK] ^= bit;
+        chunk.touched = true;
+        return true;
+    }
+
+    /**
+     * Reveals a tile. If the tile doesn't have any adjacent mines, the surrounding tiles are revealed as well,
+     * even when they are in other chunks. Flagged tiles are never revealed.
+     * @param r The row of the tile.
+     * @param c The column of the tile.
+     * @return The amount of tiles revealed. They can be read with getRevealedRow() and getRevealedColumn()
+     * until the next call to reveal().
+     */
+    public int reveal(int r, int c) {
+        revealedSize = 0;
+        if (!markRevealed(r, c)) {
+            return 0;
+        }
+        if (hasMine(r, c)) {
+            return revealedSize;
+        }
+        revealedSafeCells++;
+
+        // The list of revealed tiles is used as the queue
+        for (int head = 0; head < revealedSize; head++) {
+            int row = getRevealedRow(head);
+            int col = getRevealedColumn(head);
+            if (getNumber(row, col) != 0) {
+                continue;
+            }
+
+            for (int nr = row - 1; nr <= row + 1; nr++) {
+                for (int nc = col - 1; nc <= col + 1; nc++) {
+                    if (markRevealed(nr, nc)) {
+                        revealedSafeCells++; // Tiles next to a blank tile never have a mine
+                    }
+                }
+            }
+        }
+        return revealedSize;
+    }
+
+    public int getRevealedRow(int i) {
+        return (int) (revealedCells[i] >> 32);
+    }
+
+    public int getRevealedColumn(int i) {
+        return (int) revealedCells[i];
+    }
+
+    /**
+     * Reveals a single hidden, unflagged tile and adds it to the list of revealed tiles.
+     * @return if the tile was revealed.
+     */
+    private boolean markRevealed(int r, int c) {
+        Chunk chunk = chunk(r, c);
+        long bit = 1L << c;
+        int row = r & CHUNK_MASK;
+        if (((chunk.revealed[row] | chunk.flags[row]) & bit) != 0) {
+            return false;
+        }
+        chunk.revealed[row] |= bit;
+        chunk.touched = true;
+
+        if (revealedSize == revealedCells.length) {
+            revealedCells = Arrays.copyOf(revealedCells, revealedSize * 2);
+        }
+        revealedCells[revealedSize++] = ((long) r << 32) | (c & 0xFFFFFFFFL);
+        return true;
+    }
+
+    /**
+     * Finds the chunk that holds a tile, loading or generating it if it isn't in memory.
+     */
+    private Chunk chunk(int r, int c) {
+        long key = ((long) (r >> CHUNK_SHIFT) << 32) | ((c >> CHUNK_SHIFT) & 0xFFFFFFFFL);
+        if (key == lastKey && lastChunk != null) {
+            return lastChunk;
+        }
+
+        Chunk chunk = chunks.get(key);
+        if (chunk == null) {
+            chunk = loadChunk(r >> CHUNK_SHIFT, c >> CHUNK_SHIFT);
+            chunks.put(key, chunk);
+            evictChunks();
+        }
+        lastKey = key;
+        lastChunk = chunk;
+        return chunk;
+    }
+
+    /**
+     * Removes the least recently used chunks until the amount of chunks in memory is within budget.
+     * Chunks the player has changed are written to the spill directory first.
+     */
+    private void evictChunks() {
+        Iterator<Map.Entry<Long, Chunk>> iterator = chunks.entrySet().iterator();
+        while (chunks.size() > maxChunks && iterator.hasNext()) {
+            Map.Entry<Long, Chunk> eldest = iterator.next();
+            if (eldest.getKey() == lastKey) {
+                lastKey = Long.MIN_VALUE;
+                lastChunk = null;
+            }
+            if (eldest.getValue().touched) {
+                spillChunk(eldest.getKey(), eldest.getValue());
+            }
+            iterator.remove();
+        }
+    }
+
+    private Path spillFile(long key) {
+        return spillDirectory.resolve((int) (key >> 32) + "_" + (int) key + ".chunk");
+    }
+
+    private void spillChunk(long key, Chunk chunk) {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(spillFile(key))))) {
+            for (int i = 0; i < CHUNK_SIZE; i++) {
+                out.writeLong(chunk.revealed[i]);
+                out.writeLong(chunk.flags[i]);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not save chunk " + spillFile(key), e);
+        }
+    }
+
+    /**
+     * Generates a chunk from the seed, then restores the player's changes if it was spilled earlier.
+     * @param chunkRow The row of the chunk.
+     * @param chunkCol The column of the chunk.
+     */
+    private Chunk loadChunk(int chunkRow, int chunkCol) {
+        Chunk chunk = generateChunk(chunkRow, chunkCol);
+
+        Path file = spillFile(((long) chunkRow << 32) | (chunkCol & 0xFFFFFFFFL));
+        if (Files.exists(file)) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+                for (int i = 0; i < CHUNK_SIZE; i++) {
+                    chunk.revealed[i] = in.readLong();
+                    chunk.flags[i] = in.readLong();
+                }
+                chunk.touched = true;
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not load chunk " + file, e);
+            }
+            try {
+                Files.delete(file); // Written again if the chunk is evicted again
+            } catch (IOException e) {
+                e.printStackTrace(); // Ignore, the file is overwritten next time
+            }
+        }
+        return chunk;
+    }
+
+    /**
+     * Places the mines of a chunk and calculates its numbers.
+     * Mines one tile outside the chunk are also needed for the numbers on its edges, so a
+     * (CHUNK_SIZE + 2) x (CHUNK_SIZE + 2) area is generated.
+     */
+    private Chunk generateChunk(int chunkRow, int chunkCol) {
+        chunksGenerated++;
+        Chunk chunk = new Chunk();
+        int firstRow = chunkRow << CHUNK_SHIFT;
+        int firstCol = chunkCol << CHUNK_SHIFT;
+
+        int size = CHUNK_SIZE + 2;
+        boolean[] area = new boolean[size * size];
+        for (int r = 0; r < size; r++) {
+            for (int c = 0; c < size; c++) {
+                area[r * size + c] = mineAt(firstRow + r - 1, firstCol + c - 1);
+            }
+        }
+
+        for (int r = 0; r < CHUNK_SIZE; r++) {
+            for (int c = 0; c < CHUNK_SIZE; c++) {
+                int center = (r + 1) * size + c + 1;
+                if (area[center]) {
+                    chunk.mines[r] |= 1L << c;
+                    continue;
+                }
+
+                int adjacentMines = 0;
+                for (int dr = -size; dr <= size; dr += size) {
+                    for (int dc = -1; dc <= 1; dc++) {
+                        if (area[center + dr + dc]) {
+                            adjacentMines++;
+                        }
+                    }
+                }
+                chunk.numbers[(r << CHUNK_SHIFT) | c] = (byte) adjacentMines;
+            }
+        }
+        return chunk;
+    }
+
+    /**
+     * Decides if a tile has a mine using only the seed and the tile's position.
+     */
+    private boolean mineAt(int r, int c) {
+        if (Math.abs((long) r) <= 1 && Math.abs((long) c) <= 1) {
+            return false; // Start area
+        }
+
+        long h = seed ^ (r * 0x9E3779B97F4A7C15L) ^ (c * 0xC2B2AE3D27D4EB4FL);
+        h = (h ^ (h >>> 30)) * 0xBF58476D1CE4E5B9L;
+        h = (h ^ (h >>> 27)) * 0x94D049BB133111EBL;
+        h = h ^ (h >>> 31);
+        return (h >>> 11) < mineThreshold;
+    }
+
+    /**
+     * Deletes the spilled chunks from disk.
+     */
+    @Override
+    public void close() throws IOException {
+        try (Stream<Path> files = Files.list(spillDirectory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.deleteIfExists(file);
+            }
+        }
+        Files.deleteIfExists(spillDirectory);
+    }
+}
@@ -0,0 +1,202 @@
+package com.github.AndrewAlbizati;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.ActionEvent;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.image.BufferedImage;
+
+/**
+ * Draws the visible part of an endless board. The view is moved by dragging with the mouse or with the arrow keys.
+ * Only the tiles inside the component are painted, so only the chunks near the view are loaded.
+ */
+public class EndlessBoardPanel extends JComponent {
+    private static final int TILE_SIZE = TileGlyphs.TILE_SIZE;
+    private static final int DRAG_THRESHOLD = 4;
+
+    private final ChunkedBoard board;
+    private BoardPanel.TileListener tileListener;
+    private boolean showMines = false;
+
+    // Position of the top left corner of the view, in pixels from tile (0, 0)
+    private long viewX;
+    private long viewY;
+
+    /**
+     * @param board The board that will be drawn.
+     */
+    public EndlessBoardPanel(ChunkedBoard board) {
+        this.board = board;
+        this.setOpaque(true);
+        this.setPreferredSize(new Dimension(TILE_SIZE * 30, TILE_SIZE * 20));
+        this.setFocusable(true);
+
+        MouseAdapter mouseAdapter = new MouseAdapter() {
+            Point pressedPoint;
+            long pressedViewX;
+            long pressedViewY;
+            boolean dragged;
+
+            @Override
+            public void mousePressed(MouseEvent e) {
+                requestFocusInWindow();
+                pressedPoint = e.getPoint();
+                pressedViewX = viewX;
+                pressedViewY = viewY;
+                dragged = false;
+            }
+
+            @Override
+            public void mouseDragged(MouseEvent e) {
+                if (pressedPoint == null) {
+                    return;
+                }
+                int dx = e.getX() - pressedPoint.x;
+                int dy = e.getY() - pressedPoint.y;
+                if (Math.abs(dx) > DRAG_THRESHOLD || Math.abs(dy) > DRAG_THRESHOLD) {
+                    dragged = true;
+                }
+                if (dragged) {
+                    viewX = pressedViewX - dx;
+                    viewY = pressedViewY - dy;
+                    repaint();
+                }
+            }
+
+            @Override
+            public void mouseReleased(MouseEvent e) {
+                if (pressedPoint != null && !dragged && tileListener != null) {
+                    tileListener.tileClicked(rowAt(e.getY()), columnAt(e.getX()), e);
+                }
+                pressedPoint = null;
+            }
+        };
+        this.addMouseListener(mouseAdapter);
+        this.addMouseMotionListener(mouseAdapter);
+
+        bindPanKey(KeyEvent.VK_LEFT, -TILE_SIZE, 0);
+        bindPanKey(KeyEvent.VK_RIGHT, TILE_SIZE, 0);
+        bindPanKey(KeyEvent.VK_UP, 0, -TILE_SIZE);
+        bindPanKey(KeyEvent.VK_DOWN, 0, TILE_SIZE);
+    }
+
+    private void bindPanKey(int keyCode, int dx, int dy) {
+        String name = "pan" + keyCode;
+        getInputMap(WHEN_IN_FOCUSED_WINDOW).put(KeyStroke.getKeyStroke(keyCode, 0), name);
+        getActionMap().put(name, new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                viewX += dx;
+                viewY += dy;
+                repaint();
+            }
+        });
+    }
+
+    public void setTileListener(BoardPanel.TileListener tileListener) {
+        this.tileListener = tileListener;
+    }
+
+    /**
+     * Moves the view so that a tile is in the center.
+     */
+    public void centerOn(int row, int col) {
+        Dimension size = getWidth() > 0 ? getSize() : getPreferredSize();
+        viewX = (long) col * TILE_SIZE + TILE_SIZE / 2 - size.width / 2;
+        viewY = (long) row * TILE_SIZE + TILE_SIZE / 2 - size.height / 2;
+        repaint();
+    }
+
+    /**
+     * Shows the mines in view, used when the game has ended.
+     */
+    public void showMines() {
+        showMines = true;
+        repaint();
+    }
+
+    /**
+     * Repaints the tiles revealed by the last call to ChunkedBoard.reveal() that are in view.
+     * @param revealed The amount of tiles that were revealed.
+     */
+    public void repaintRevealed(int revealed) {
+        if (revealed == 0) {
+            return;
+        }
+
+        int minRow = Integer.MAX_VALUE;
+        int maxRow = Integer.MIN_VALUE;
+        int minCol = Integer.MAX_VALUE;
+        int maxCol = Integer.MIN_VALUE;
+        for (int i = 0; i < revealed; i++) {
+            minRow = Math.min(minRow, board.getRevealedRow(i));
+            maxRow = Math.max(maxRow, board.getRevealedRow(i));
+            minCol = Math.min(minCol, board.getRevealedColumn(i));
+            maxCol = Math.max(maxCol, board.getRevealedColumn(i));
+        }
+        repaintTiles(minRow, minCol, maxRow, maxCol);
+    }
+
+    /**
+     * Repaints the rectangle of tiles between two corners, clipped to the view.
+     */
+    public void repaintTiles(int minRow, int minCol, int maxRow, int maxCol) {
+        long x1 = Math.max((long) minCol * TILE_SIZE - viewX, 0);
+        long y1 = Math.max((long) minRow * TILE_SIZE - viewY, 0);
+        long x2 = Math.min((long) (maxCol + 1) * TILE_SIZE - viewX, getWidth());
+        long y2 = Math.min((long) (maxRow + 1) * TILE_SIZE - viewY, getHeight());
+        if (x2 > x1 && y2 > y1) {
+            repaint((int) x1, (int) y1, (int) (x2 - x1), (int) (y2 - y1));
+        }
+    }
+
+    private int rowAt(int y) {
+        return (int) Math.floorDiv(viewY + y, TILE_SIZE);
+    }
+
+    private int columnAt(int x) {
+        return (int) Math.floorDiv(viewX + x, TILE_SIZE);
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        Rectangle clip = g.getClipBounds();
+        if (clip == null) {
+            clip = new Rectangle(0, 0, getWidth(), getHeight());
+        }
+
+        int firstRow = rowAt(clip.y);
+        int lastRow = rowAt(clip.y + clip.height - 1);
+        int firstCol = columnAt(clip.x);
+        int lastCol = columnAt(clip.x + clip.width - 1);
+
+        for (int r = firstRow; r <= lastRow; r++) {
+            int y = (int) ((long) r * TILE_SIZE - viewY);
+            for (int c = firstCol; c <= lastCol; c++) {
+                int x = (int) ((long) c * TILE_SIZE - viewX);
+                g.drawImage(glyphFor(r, c), x, y, null);
+            }
+        }
+    }
+
+    /**
+     * @return The pre-rendered image that shows the current state of a tile.
+     */
+    private BufferedImage glyphFor(int r, int c) {
+        if (board.isRevealed(r, c)) {
+            if (board.hasMine(r, c)) {
+                return TileGlyphs.bomb();
+            }
+            return TileGlyphs.number(board.getNumber(r, c));
+        }
+        if (showMines && board.hasMine(r, c)) {
+            return TileGlyphs.bomb();
+        }
+        if (board.isFlagged(r, c)) {
+            return TileGlyphs.flag();
+        }
+        return TileGlyphs.hidden();
+    }
+}
@@ -0,0 +1,127 @@
+package com.github.AndrewAlbizati;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.MouseEvent;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.io.IOException;
+
+/**
+ * A game of Minesweeper on a board without edges. The player reveals as many tiles as they can
+ * before clicking on a bomb. The game starts with the area around tile (0, 0) revealed.
+ */
+public class EndlessGame extends JFrame {
+    public static final double DEFAULT_DENSITY = 0.18;
+    private static final int MAX_CHUNKS = 256;
+
+    private final ChunkedBoard board;
+    private final EndlessBoardPanel boardPanel;
+    private final JLabel revealedLabel;
+
+    private boolean gameEnded = false;
+
+    /**
+     * Sets up an endless game that is ready to be started by the start() method.
+     * @param seed The seed used to place the bombs.
+     * @param density The chance of a tile having a bomb.
+     * @throws IOException If the directory used to store chunks can't be created.
+     */
+    public EndlessGame(long seed, double density) throws IOException {
+        this.board = new ChunkedBoard(seed, density, MAX_CHUNKS);
+
+        this.setTitle("Minesweeper (ENDLESS)");
+        this.setLayout(new BorderLayout());
+        this.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        this.addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                closeBoard();
+            }
+        });
+
+        Resources.setIcon(this);
+
+        revealedLabel = new JLabel("0");
+        revealedLabel.setFont(Resources.LABEL_FONT);
+
+        JLabel helpLabel = new JLabel("Drag or use the arrow keys to move");
+        helpLabel.setFont(Resources.SMALL_FONT);
+
+        JPanel labelPanel = new JPanel(new BorderLayout());
+        labelPanel.setBorder(BorderFactory.createEmptyBorder(4, 8, 4, 8));
+        labelPanel.add(revealedLabel, BorderLayout.WEST);
+        labelPanel.add(helpLabel, BorderLayout.EAST);
+        this.add(labelPanel, BorderLayout.NORTH);
+
+        boardPanel = new EndlessBoardPanel(board);
+        boardPanel.setTileListener(this::onTileClicked);
+        this.add(boardPanel, BorderLayout.CENTER);
+
+        this.pack();
+    }
+
+    /**
+     * Reveals the starting area and shows the game to the player.
+     */
+    public void start() {
+        board.reveal(0, 0);
+        revealedLabel.setText(String.valueOf(board.getRevealedSafeCells()));
+        boardPanel.centerOn(0, 0);
+        this.setVisible(true);
+    }
+
+    /**
+     * Handles when a player clicks on a tile. Left-clicks reveal tiles, right-clicks place or remove flags.
+     */
+    private void onTileClicked(int row, int col, MouseEvent e) {
+        if (gameEnded) {
+            return;
+        }
+
+        if (SwingUtilities.isRightMouseButton(e)) {
+            if (board.toggleFlag(row, col)) {
+                boardPanel.repaintTiles(row, col, row, col);
+            }
+            return;
+        }
+
+        if (!SwingUtilities.isLeftMouseButton(e) || board.isFlagged(row, col)) {
+            return;
+        }
+
+        int revealed = board.reveal(row, col);
+        if (revealed == 0) {
+            return;
+        }
+
+        if (board.hasMine(row, col)) {
+            gameEnded = true;
+            boardPanel.showMines();
+
+            // Prompt user to play again
+            int a = JOptionPane.showConfirmDialog(this, "You revealed " + board.getRevealedSafeCells() + " tiles. Try again?", "You clicked on a bomb!", JOptionPane.YES_NO_OPTION);
+            if (a == 0) {
+                this.setVisible(false);
+                closeBoard();
+                this.dispose();
+                TitleScreen.showTitleScreen();
+            }
+            return;
+        }
+
+        revealedLabel.setText(String.valueOf(board.getRevealedSafeCells()));
+        boardPanel.repaintRevealed(revealed);
+    }
+
+    /**
+     * Deletes the chunks that were saved to disk.
+     */
+    private void closeBoard() {
+        try {
+            board.close();
+        } catch (IOException e) {
+            e.printStackTrace(); // Ignore, only temporary files are left behind
+        }
+    }
+}
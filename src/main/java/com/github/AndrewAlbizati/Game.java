@@ -1,543 +1,695 @@
 package com.github.AndrewAlbizati;
 
-import javax.imageio.ImageIO;
 import javax.swing.*;
 import java.awt.*;
-import java.awt.event.MouseAdapter;
+import java.awt.datatransfer.StringSelection;
+import java.awt.event.ActionEvent;
+import java.awt.event.InputEvent;
+import java.awt.event.KeyEvent;
 import java.awt.event.MouseEvent;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
 import java.io.IOException;
-import java.io.InputStream;
-import java.util.Properties;
-import java.util.Random;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.TimeUnit;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
 
 public class Game extends JFrame {
-    private final Tile[][] buttons;
-
-    private final int rows;
-    private final int cols;
-    private final int mines;
-
-    private boolean gameStarted = false;
-    private boolean gameEnded = false;
+    private static final int AUTOSAVE_MILLIS = 5000;
+    private static final int HISTORY_LIMIT_BYTES = 16 << 20; // Enough for every move of the largest custom boards
+
+    // Hidden windows of finished games, reused by the next game of the same difficulty. Only used on the Event Dispatch Thread
+    private static final Map<Difficulties, Game> POOL = new EnumMap<>(Difficulties.class);
+
+    private final GameEngine engine;
+    private final Board board;
+    private final BoardPanel boardPanel;
+    private final LatencyOverlay latencyOverlay;
+    private Solver solver = null; // Created the first time the player asks for help
+
+    private final MineProbabilities mineProbabilities = new MineProbabilities();
+    private final JToggleButton probabilitiesButton;
+    private Future<?> probabilitiesTask = null;
+    private int probabilitiesVersion = 0; // Results of older calculations are thrown away
+    private boolean probabilitiesPending = false;
+
+    private final Difficulties difficulty;
+    private boolean noGuess = false;
+    private boolean practice = false; // Set once a move is undone, practice games aren't saved or added to the history
+    private final JButton undoButton;
+    private final JButton redoButton;
 
     private final JLabel flagsRemainingLabel;
     private final JLabel timerLabel;
 
-    private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(1);
+    private final GameClock clock = new GameClock();
+    private long resumedMillis = 0; // The time already played before the game was saved
+    private ReplayRecorder recorder;
+
+    private final Timer autosaveTimer = new Timer(AUTOSAVE_MILLIS, e -> autosave());
+    private boolean unsavedChanges = false;
 
     /**
      * Sets up a game of Minesweeper that is ready to be started by the start() method.
      * @param difficulty The difficulty that the game will be set to. Changes the size of the board and amount of bombs.
      */
     public Game(Difficulties difficulty) {
-        this.rows = difficulty.rows;
-        this.cols = difficulty.columns;
-        this.mines = difficulty.mines;
+        this(difficulty, new GameEngine(difficulty));
+    }
+
+    /**
+     * Sets up a game of Minesweeper on a board without guessing that is ready to be started by the start() method.
+     * The game starts with the start tile of the board revealed.
+     * @param difficulty The difficulty of the board.
+     * @param board A board from NoGuessGenerator.
+     */
+    public Game(Difficulties difficulty, Board board) {
+        this(difficulty, new GameEngine(board));
+        this.noGuess = true;
+        this.recorder = new ReplayRecorder(board.getRows(), board.getColumns(), board.getMines(), 0, board.copyMines());
+        updateTitle();
+    }
 
-        Font gameLabelFont = new Font("Verdana", Font.PLAIN, 18);
+    /**
+     * Sets up a game of Minesweeper with a custom board that is ready to be started by the start() method.
+     * Lowest times aren't saved for custom boards.
+     * @param rows The amount of rows on the board.
+     * @param cols The amount of columns on the board.
+     * @param mines The amount of bombs on the board.
+     */
+    public Game(int rows, int cols, int mines) {
+        this(null, new GameEngine(rows, cols, mines));
+    }
 
-        flagsRemainingLabel = new JLabel(String.valueOf(mines));
-        flagsRemainingLabel.setFont(gameLabelFont);
+    /**
+     * Sets up a game of Minesweeper on a board from a board code that is ready to be started by the start() method.
+     * The bombs are already placed, so the first tile revealed can have one. Lowest times aren't saved.
+     * @param layout The board, from BoardCodec.fromCode().
+     */
+    public Game(BoardCodec.Layout layout) {
+        this(null, new GameEngine(layout.toBoard()));
+        this.recorder = new ReplayRecorder(board.getRows(), board.getColumns(), board.getMines(), 0, board.copyMines());
+    }
+
+    /**
+     * Sets up a saved game of Minesweeper that is ready to be continued by the start() method.
+     * @param saved The game that was saved.
+     * @throws IOException If the clicks saved with the game are invalid.
+     */
+    public Game(SavedGame saved) throws IOException {
+        this(saved.getDifficulty(), saved.toEngine());
+        this.noGuess = saved.isNoGuess();
+        this.recorder = saved.toRecorder();
+        this.resumedMillis = saved.getElapsedMillis();
+        updateTitle();
+    }
+
+    /**
+     * Gets a game of a difficulty that is ready to be started by the start() method.
+     * The window of an earlier game of the same difficulty is reused if there is one.
+     * @param difficulty The difficulty of the game.
+     * @return The game.
+     */
+    public static Game obtain(Difficulties difficulty) {
+        Game game = POOL.remove(difficulty);
+        if (game == null) {
+            return new Game(difficulty);
+        }
+        game.engine.newGame();
+        game.reset(false);
+        return game;
+    }
+
+    /**
+     * Gets a game on a board without guessing that is ready to be started by the start() method.
+     * The window of an earlier game of the same difficulty is reused if there is one.
+     * @param difficulty The difficulty of the board.
+     * @param board A board from NoGuessGenerator, only its mines are used if a window is reused.
+     * @return The game.
+     */
+    public static Game obtain(Difficulties difficulty, Board board) {
+        Game game = POOL.remove(difficulty);
+        if (game == null) {
+            return new Game(difficulty, board);
+        }
+        game.engine.newGame(board.copyMines());
+        game.reset(true);
+        return game;
+    }
+
+    private Game(Difficulties difficulty, GameEngine engine) {
+        this.difficulty = difficulty;
+        this.engine = engine;
+        this.board = engine.getBoard();
+        engine.setHistoryLimit(HISTORY_LIMIT_BYTES);
+        int rows = board.getRows();
+        int cols = board.getColumns();
+        int mines = board.getMines();
+        this.recorder = new ReplayRecorder(rows, cols, mines, engine.getSeed(), null);
+
+        GameHistory.getInstance().load(); // Start reading the history early, a win waits for it with loadLatest()
+
+        flagsRemainingLabel = new JLabel(String.valueOf(engine.getFlagsRemaining()));
+        flagsRemainingLabel.setFont(Resources.LABEL_FONT);
 
         timerLabel = new JLabel("0");
         timerLabel.setHorizontalAlignment(SwingConstants.RIGHT);
-        timerLabel.setFont(gameLabelFont);
+        timerLabel.setFont(Resources.LABEL_FONT);
 
-        this.setTitle("Minesweeper (" + difficulty.name() + ")");
+        updateTitle();
 
-        this.setLayout(new GridLayout(rows + 1, cols + 1));
-        this.setSize(cols * 50,cols * 50);
+        this.setLayout(new BorderLayout());
         this.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        this.addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                saveNow();
+            }
+        });
+
+        Resources.setIcon(this);
+
+        JPanel labelPanel = new JPanel(new BorderLayout());
+        labelPanel.setBorder(BorderFactory.createEmptyBorder(4, 8, 4, 8));
+        labelPanel.add(flagsRemainingLabel, BorderLayout.WEST);
+        labelPanel.add(timerLabel, BorderLayout.EAST);
+
+        JButton hintButton = new JButton("Hint");
+        hintButton.setFocusable(false);
+        hintButton.addActionListener(e -> showHint());
+        JButton playSafeMovesButton = new JButton("Play safe moves");
+        playSafeMovesButton.setFocusable(false);
+        playSafeMovesButton.addActionListener(e -> playSafeMoves());
+        probabilitiesButton = new JToggleButton("Probabilities");
+        probabilitiesButton.setFocusable(false);
+        probabilitiesButton.setToolTipText("Colors every hidden tile by its chance of having a bomb");
+        probabilitiesButton.addActionListener(e -> updateProbabilities());
+        JButton copyCodeButton = new JButton("Copy code");
+        copyCodeButton.setFocusable(false);
+        copyCodeButton.setToolTipText("Copies a code that others can use to play this board");
+        copyCodeButton.addActionListener(e -> copyCode());
+        undoButton = new JButton("Undo");
+        undoButton.setFocusable(false);
+        undoButton.setToolTipText("Takes back the last move (Ctrl+Z), the game becomes a practice game");
+        undoButton.addActionListener(e -> undo());
+        redoButton = new JButton("Redo");
+        redoButton.setFocusable(false);
+        redoButton.setToolTipText("Makes the last move that was taken back again (Ctrl+Y)");
+        redoButton.addActionListener(e -> redo());
+        updateHistoryButtons();
+        bindKey(KeyStroke.getKeyStroke(KeyEvent.VK_Z, InputEvent.CTRL_DOWN_MASK), "undo", this::undo);
+        bindKey(KeyStroke.getKeyStroke(KeyEvent.VK_Y, InputEvent.CTRL_DOWN_MASK), "redo", this::redo);
+        JPanel helpPanel = new JPanel();
+        helpPanel.add(hintButton);
+        helpPanel.add(playSafeMovesButton);
+        helpPanel.add(probabilitiesButton);
+        helpPanel.add(copyCodeButton);
+        helpPanel.add(undoButton);
+        helpPanel.add(redoButton);
+        labelPanel.add(helpPanel, BorderLayout.CENTER);
+        this.add(labelPanel, BorderLayout.NORTH);
+
+        // One component draws the whole board, only the visible part is painted
+        boardPanel = new BoardPanel(board);
+        boardPanel.setTileListener(this::onTileClicked);
+        this.add(new JScrollPane(boardPanel), BorderLayout.CENTER);
+
+        latencyOverlay = LatencyOverlay.install(this);
+        boardPanel.setPaintListener(latencyOverlay::painted);
+
+        this.pack();
+    }
 
-        try {
-            InputStream inputStream = Game.class.getResourceAsStream("/bomb.png");
-            if (inputStream == null) {
-                throw new NullPointerException("bomb.png not found");
+    private void updateTitle() {
+        String title;
+        if (difficulty != null) {
+            title = "Minesweeper (" + difficulty.name() + ")";
+        } else {
+            title = "Minesweeper (CUSTOM " + board.getRows() + " x " + board.getColumns() + ", " + board.getMines() + " bombs)";
+        }
+        if (noGuess) {
+            title += " (no guessing)";
+        }
+        this.setTitle(practice ? title + " (practice)" : title);
+    }
+
+    private void bindKey(KeyStroke key, String name, Runnable action) {
+        JRootPane rootPane = this.getRootPane();
+        rootPane.getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW).put(key, name);
+        rootPane.getActionMap().put(name, new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                action.run();
             }
-            Image image = ImageIO.read(inputStream);
-            this.setIconImage(image);
-        } catch (NullPointerException | IOException e) {
-            e.printStackTrace(); // Ignore, use default Java logo
-        }
-
-        this.add(flagsRemainingLabel);
-
-        for (int i = 0; i < cols - 2; i ++) {
-            this.add(new JLabel("")); // blank labels to take up space on grid
-        }
-
-        this.add(timerLabel);
-
-        buttons = new Tile[rows][cols];
-
-        // Create buttons
-        for (int r = 0; r < rows; r++) {
-            for (int c = 0; c < cols; c++) {
-                Tile b = new Tile(r, c);
-
-                b.setFont(new Font("Verdana", Font.PLAIN, 20));
-
-                JFrame frame = this;
-                b.addMouseListener(new MouseAdapter(){
-                    boolean pressed;
-
-                    @Override
-                    public void mousePressed(MouseEvent e) {
-                        pressed = true;
-                    }
-
-                    @Override
-                    public void mouseReleased(MouseEvent e) {
-                        if (gameEnded) {
-                            return;
-                        }
-
-                        if (pressed) {
-                            if (SwingUtilities.isRightMouseButton(e)) {
-                                onRightClick(b);
-                            } else if (SwingUtilities.isLeftMouseButton(e)) {
-                                onLeftClick(b);
-                            }
-                        }
-
-                        if (gameEnded) {
-                            return;
-                        }
-
-                        if (hasWin()) {
-                            scheduler.shutdown();
-                            revealAllTiles();
-                            gameEnded = true;
-
-                            // Update the lowest times
-                            try {
-                                Properties prop = new Properties();
-                                FileInputStream fileInputStream = new FileInputStream("minesweeper-lowest-times.properties");
-                                prop.load(fileInputStream);
-
-                                if (!prop.getProperty(difficulty.toString().toLowerCase()).equals("")) {
-                                    int lowestTime = Integer.parseInt(prop.getProperty(difficulty.toString().toLowerCase()));
-                                    if (lowestTime > Integer.parseInt(timerLabel.getText())) {
-                                        prop.setProperty(difficulty.toString().toLowerCase(), timerLabel.getText());
-                                        prop.store(new FileOutputStream("minesweeper-lowest-times.properties"), null);
-                                    }
-                                } else {
-                                    prop.setProperty(difficulty.toString().toLowerCase(), timerLabel.getText());
-                                    prop.store(new FileOutputStream("minesweeper-lowest-times.properties"), null);
-                                }
-                            } catch (IOException exception) {
-                                exception.printStackTrace();
-                            }
-
-                            // Prompt user to play again
-                            int a = JOptionPane.showConfirmDialog(frame, "Play again?", "You won!", JOptionPane.YES_NO_OPTION);
-                            if (a == 0) {
-                                frame.setVisible(false);
-                                TitleScreen titleScreen = new TitleScreen();
-                                titleScreen.setVisible(true);
-                            }
-                            return;
-                        }
-                        pressed = false;
-                    }
-
-                    @Override
-                    public void mouseExited(MouseEvent e) {
-                        pressed = false;
-                    }
-
-                    @Override
-                    public void mouseEntered(MouseEvent e) {
-                        pressed = true;
-                    }
-                });
+        });
+    }
 
-                buttons[r][c] = b;
-                this.add(b);
+    /**
+     * Gets the window ready for the new game the engine was just reset to.
+     * @param noGuess If the new board can be solved without guessing.
+     */
+    private void reset(boolean noGuess) {
+        this.noGuess = noGuess;
+        this.practice = false;
+        this.recorder = new ReplayRecorder(board.getRows(), board.getColumns(), board.getMines(), engine.getSeed(), noGuess ? board.copyMines() : null);
+        this.resumedMillis = 0;
+        this.unsavedChanges = false;
+        if (solver != null) {
+            solver.reset();
+        }
+        mineProbabilities.reset();
+
+        updateTitle();
+        flagsRemainingLabel.setText(String.valueOf(engine.getFlagsRemaining()));
+        timerLabel.setText("0");
+        boardPanel.reset();
+        updateProbabilities();
+        updateHistoryButtons();
+    }
+
+    /**
+     * Hides the window and shows the title screen. The window is kept for the next game of the same difficulty.
+     */
+    private void playAgain() {
+        clock.stopTicking();
+        autosaveTimer.stop();
+        this.setVisible(false);
+        if (difficulty == null) {
+            this.dispose(); // Custom boards are rarely played twice
+        } else {
+            Game previous = POOL.put(difficulty, this);
+            if (previous != null) {
+                previous.dispose();
             }
         }
+        TitleScreen.showTitleScreen();
     }
 
     /**
-     * Starts the timer and shows the game to the player.
+     * Handles when a player clicks on a tile, then checks if the game has been won.
      */
-    public void start() {
-        generateBoard();
+    private void onTileClicked(int row, int col, MouseEvent e) {
+        if (engine.isEnded()) {
+            return;
+        }
+        GameEvents.ClickEvent event = new GameEvents.ClickEvent();
+        event.begin();
+        latencyOverlay.clickStarted();
+        boardPanel.setHighlightedCell(-1);
+
+        int clicks = engine.getClicks();
+        if (SwingUtilities.isRightMouseButton(e)) {
+            event.button = "right";
+            onRightClick(row, col);
+        } else if (SwingUtilities.isLeftMouseButton(e)) {
+            event.button = "left";
+            onLeftClick(row, col);
+        }
+        boolean changed = engine.getClicks() != clicks;
+        if (!changed) {
+            latencyOverlay.clickIgnored();
+        }
 
-        // Start timer
-        scheduler.scheduleAtFixedRate(() -> timerLabel.setText(String.valueOf(Integer.parseInt(timerLabel.getText()) + 1)), 0, 1, TimeUnit.SECONDS);
-        this.setVisible(true);
+        event.row = row;
+        event.column = col;
+        event.changedTiles = changed ? engine.getChangedCells().size() : 0;
+        event.commit();
+
+        checkForWin();
     }
 
     /**
-     * Creates a brand-new board with newly and randomly placed bombs. Removes all flags and hides all tiles.
+     * Ends the game if the last move won it, saves the lowest time and prompts the player to play again.
      */
-    private void generateBoard() {
-        for (int r = 0; r < rows; r++) {
-            for (int c = 0; c < cols; c++) {
-                Tile tile = buttons[r][c];
-                tile.setRevealed(false);
-                tile.setEnabled(true);
-                tile.setHasFlag(false);
-                tile.setHasBomb(false);
-                tile.setText("");
+    private void checkForWin() {
+        if (engine.isWon()) {
+            stopClock();
+            revealAllTiles();
+
+            long time = clock.getElapsedMillis();
+            String message = "Your time: " + GameClock.format(time) + " seconds.";
+            if (practice) {
+                showWin(message + " Practice games aren't saved.");
+            } else if (difficulty == null) {
+                saveGame(true, time);
+                showWin(message);
+            } else {
+                // Compare with the earlier wins once the history has been read, then add this one
+                GameHistory.getInstance().loadLatest().thenAccept(history -> {
+                    long lowestTime = history.getBestMillis(difficulty);
+                    String comparison = lowestTime == -1 || time < lowestTime ? " New lowest time!"
+                            : String.format(" Faster than %.0f%% of your wins.", history.getPercentSlowerThan(difficulty, time));
+                    SwingUtilities.invokeLater(() -> {
+                        saveGame(true, time);
+                        showWin(message + comparison);
+                    });
+                });
             }
         }
+    }
+
+    /**
+     * Tells the player they won and prompts them to play again.
+     */
+    private void showWin(String message) {
+        int a = JOptionPane.showConfirmDialog(this, message + " Play again?", "You won!", JOptionPane.YES_NO_OPTION);
+        if (a == 0) {
+            playAgain();
+        }
+    }
 
-        Random rand = new Random();
 
+    /**
+     * Starts the timer and shows the game to the player.
+     */
+    public void start() {
+        if (noGuess && !engine.isStarted()) {
+            onLeftClick(NoGuessGenerator.getStartRow(board), NoGuessGenerator.getStartColumn(board));
+        }
 
-        // Generate bombs
-        int minesOnBoard = 0;
-        while (minesOnBoard < mines) {
-            int x = rand.nextInt(rows);
-            int y = rand.nextInt(cols);
+        // Start timer, the label only shows whole seconds so it doesn't need to be refreshed often
+        clock.start(resumedMillis);
+        clock.startTicking(this::refreshTimerLabel, 100);
+        autosaveTimer.start();
+        this.setVisible(true);
+    }
 
-            if (buttons[x][y].getHasBomb()) {
-                continue;
-            }
-            buttons[x][y].setHasBomb(true);
-            minesOnBoard++;
+    /**
+     * Saves the game in the background if it changed since the last save.
+     * Only copying the board happens on the Event Dispatch Thread, the file is written by another thread.
+     */
+    private void autosave() {
+        if (!unsavedChanges || engine.isEnded() || practice) {
+            return;
         }
+        unsavedChanges = false;
+        SavedGame.of(engine, difficulty, noGuess, clock.getElapsedMillis(), recorder).writeAsync(Path.of(SavedGame.FILE_NAME));
+    }
 
-        // Calculate adjacent bombs for each tile
-        for (int r = 0; r < rows; r++) {
-            for (int c = 0; c < cols; c++) {
-                Tile tile = buttons[r][c];
-                if (tile.getHasBomb()) {
-                    continue;
-                }
+    /**
+     * Saves the game and waits until it is written, used when the window is closed.
+     */
+    private void saveNow() {
+        autosaveTimer.stop();
+        if (engine.isEnded() || engine.getClicks() == 0 || practice) {
+            return;
+        }
+        SavedGame.of(engine, difficulty, noGuess, clock.getElapsedMillis(), recorder).writeAsync(Path.of(SavedGame.FILE_NAME)).join();
+    }
 
-                int adjacentBombs = 0;
-
-                // Get tiles above
-                if (r > 0) {
-                    // Top middle tile
-                    if (buttons[r - 1][c].getHasBomb()) {
-                        adjacentBombs++;
-                    }
-
-                    // Top left tile
-                    if (c > 0) {
-                        if (buttons[r - 1][c - 1].getHasBomb()) {
-                            adjacentBombs++;
-                        }
-                    }
-
-                    // Top right tile
-                    if (c < cols - 1) {
-                        if (buttons[r - 1][c + 1].getHasBomb()) {
-                            adjacentBombs++;
-                        }
-                    }
-                }
+    /**
+     * Adds the finished game to the history and saves its replay in the background.
+     */
+    private void saveGame(boolean won, long time) {
+        if (practice) {
+            return; // Stopped saving when the game became a practice game
+        }
 
-                // Get tiles below
-                if (r < rows - 1) {
-                    // Bottom middle tile
-                    if (buttons[r + 1][c].getHasBomb()) {
-                        adjacentBombs++;
-                    }
-
-                    // Bottom left tile
-                    if (c > 0) {
-                        if (buttons[r + 1][c - 1].getHasBomb()) {
-                            adjacentBombs++;
-                        }
-                    }
-
-                    // Bottom right tile
-                    if (c < cols - 1) {
-                        if (buttons[r + 1][c + 1].getHasBomb()) {
-                            adjacentBombs++;
-                        }
-                    }
-                }
+        // The game can't be continued anymore
+        autosaveTimer.stop();
+        SavedGame.deleteAsync(Path.of(SavedGame.FILE_NAME));
+
+        long finishedAt = System.currentTimeMillis();
+        GameHistory.getInstance().add(new GameHistory.Entry(difficulty, won, time, engine.getClicks(), engine.getSeed(), finishedAt));
+
+        byte[] replay = recorder.toBytes();
+        String name = (difficulty == null ? "custom" : difficulty.toString().toLowerCase()) + "-" + finishedAt + Replay.EXTENSION;
+        CompletableFuture.runAsync(() -> {
+            GameEvents.PersistenceEvent event = new GameEvents.PersistenceEvent();
+            event.begin();
+            try {
+                Path directory = Path.of(Replay.DIRECTORY);
+                Files.createDirectories(directory);
+                Files.write(directory.resolve(name), replay);
+                event.operation = "write replay";
+                event.bytes = replay.length;
+                event.commit();
+            } catch (IOException e) {
+                e.printStackTrace(); // Ignore, the game can't be replayed
+            }
+        });
+    }
 
-                // Get left tile
-                if (c > 0) {
-                    if (buttons[r][c - 1].getHasBomb()) {
-                        adjacentBombs++;
-                    }
-                }
+    private void refreshTimerLabel() {
+        timerLabel.setText(String.valueOf(clock.getElapsedMillis() / 1000));
+    }
 
-                // Get right tile
-                if (c < cols - 1) {
-                    if (buttons[r][c + 1].getHasBomb()) {
-                        adjacentBombs++;
-                    }
-                }
+    /**
+     * Stops the timer and shows the final time.
+     */
+    private void stopClock() {
+        clock.stop();
+        refreshTimerLabel();
+    }
 
-                tile.setNumber(adjacentBombs);
-            }
+    /**
+     * Stops refreshing the timer when the window is closed or replaced.
+     */
+    @Override
+    public void dispose() {
+        clock.stopTicking();
+        autosaveTimer.stop();
+        if (probabilitiesTask != null) {
+            probabilitiesTask.cancel(true);
         }
+        super.dispose();
     }
 
     /**
      * Handles when a user right-clicks on a tile. It can place a flag or remove a flag.
-     * @param tile The tile that was right-clicked on.
+     * @param row The row of the tile that was right-clicked on.
+     * @param col The column of the tile that was right-clicked on.
      */
-    private void onRightClick(Tile tile) {
-        if (tile.getRevealed()) {
+    private void onRightClick(int row, int col) {
+        if (!engine.rightClick(row, col)) {
             return;
         }
+        recorder.record(Move.Type.FLAG, board.index(row, col), clock.getElapsedMillis());
+        unsavedChanges = true;
+        updateProbabilities();
+        updateHistoryButtons();
 
-        // Remove flag
-        if (tile.getHasFlag()) {
-            tile.setText("");
-            tile.setHasFlag(false);
-            flagsRemainingLabel.setText(String.valueOf(Integer.parseInt(flagsRemainingLabel.getText()) + 1));
-        // Place flag
-        } else {
-            tile.setText("F");
-            tile.setHasFlag(true);
-            flagsRemainingLabel.setText(String.valueOf(Integer.parseInt(flagsRemainingLabel.getText()) - 1));
-        }
-        refreshBoard();
+        flagsRemainingLabel.setText(String.valueOf(engine.getFlagsRemaining()));
+        boardPanel.repaintCells(engine.getChangedCells());
     }
 
     /**
      * Handles when a player left-clicks on a tile. It can win the game, end the game, or reveal tiles.
-     * @param tile The tile that was left-clicked on.
+     * @param row The row of the tile that was left-clicked on.
+     * @param col The column of the tile that was left-clicked on.
      */
-    private void onLeftClick(Tile tile) {
-        if (tile.getHasFlag()) {
-            return; // Ignore when a player left-clicks a tile with a flag
-        }
-
-        // Generate new boards until the first tile revealed is a blank space
-        // Prevents game from instantly ending
-        if (!gameStarted) {
-            if (tile.getHasBomb()) {
-                generateBoard();
-                onLeftClick(tile);
-            } else if (tile.getNumber() != 0) {
-                generateBoard();
-                onLeftClick(tile);
-            }
-            gameStarted = true;
+    private void onLeftClick(int row, int col) {
+        if (!engine.leftClick(row, col)) {
+            return;
         }
+        recorder.record(Move.Type.REVEAL, board.index(row, col), clock.getElapsedMillis());
+        unsavedChanges = true;
+        updateProbabilities();
+        updateHistoryButtons();
 
-        if (tile.getHasBomb()) {
+        if (engine.isLost()) {
+            stopClock();
             revealAllTiles();
-            gameEnded = true;
-            scheduler.shutdown();
+            saveGame(false, clock.getElapsedMillis());
 
             // Prompt user to play again
             int a = JOptionPane.showConfirmDialog(this, "Try again?", "You clicked on a bomb!", JOptionPane.YES_NO_OPTION);
             if (a == 0) {
-                this.setVisible(false);
-                new TitleScreen().setVisible(true);
+                playAgain();
             }
             return;
         }
 
-        if (tile.getNumber() != 0) {
-            tile.setRevealed(true);
-        } else {
-            revealSurroundingTiles(tile);
+        boardPanel.repaintCells(engine.getChangedCells());
+        if (solver != null) {
+            solver.update(engine.getChangedCells());
         }
-        refreshBoard();
     }
 
     /**
-     * Recursively reveals all tiles that should be revealed.
-     * Reveals all adjacent tiles until it reaches a tile with a number (tile with adjacent bomb).
-     * @param tile Tile that a player has clicked.
+     * Takes back the last move, continuing the game if that move ended it.
+     * The game becomes a practice game: it isn't saved anymore and can't set a lowest time.
      */
-    private void revealSurroundingTiles(Tile tile) {
-        if (tile.getHasFlag()) {
+    private void undo() {
+        boolean ended = engine.isEnded();
+        if (!engine.undo()) {
             return;
         }
-        tile.setRevealed(true);
+        if (!practice) {
+            practice = true;
+            updateTitle();
+            autosaveTimer.stop();
+            SavedGame.deleteAsync(Path.of(SavedGame.FILE_NAME));
+        }
+        if (ended) {
+            boardPanel.hideAll();
+            clock.start(clock.getElapsedMillis());
+            clock.startTicking(this::refreshTimerLabel, 100);
+        }
+        onHistoryMove();
+    }
 
-        // Get tiles above
-        if (tile.getRow() > 0) {
-            // Top middle tile
-            Tile topMiddle = buttons[tile.getRow() - 1][tile.getColumn()];
-            if (topMiddle.getNumber() == 0) {
-                if (!topMiddle.getRevealed()) {
-                    revealSurroundingTiles(topMiddle);
-                }
-            } else {
-                topMiddle.setRevealed(true);
-            }
+    /**
+     * Makes the last move that was taken back again.
+     */
+    private void redo() {
+        if (!engine.redo()) {
+            return;
+        }
+        if (engine.isEnded()) {
+            stopClock();
+            revealAllTiles();
+        }
+        onHistoryMove();
+    }
 
-            // Top left tile
-            if (tile.getColumn() > 0) {
-                Tile topLeft = buttons[tile.getRow() - 1][tile.getColumn() - 1];
-                if (topLeft.getNumber() == 0) {
-                    if (!topLeft.getRevealed()) {
-                        revealSurroundingTiles(topLeft);
-                    }
-                } else {
-                    topLeft.setRevealed(true);
-                }
-            }
+    private void onHistoryMove() {
+        solver = null; // The solver can only add revealed tiles, it is made again the next time it is needed
+        boardPanel.setHighlightedCell(-1);
+        boardPanel.repaintCells(engine.getChangedCells());
+        flagsRemainingLabel.setText(String.valueOf(engine.getFlagsRemaining()));
+        updateProbabilities();
+        updateHistoryButtons();
+    }
 
-            // Top right tile
-            if (tile.getColumn() < cols - 1) {
-                Tile topRight = buttons[tile.getRow() - 1][tile.getColumn() + 1];
-                if (topRight.getNumber() == 0) {
-                    if (!topRight.getRevealed()) {
-                        revealSurroundingTiles(topRight);
-                    }
-                } else {
-                    topRight.setRevealed(true);
-                }
-            }
+    private void updateHistoryButtons() {
+        undoButton.setEnabled(engine.canUndo());
+        redoButton.setEnabled(engine.canRedo());
+    }
+
+    /**
+     * Stops calculating the probabilities, they are out of date after a move, and calculates them again
+     * once the current events are handled. Several moves in a row, like "Play safe moves", start one calculation.
+     */
+    private void updateProbabilities() {
+        probabilitiesVersion++;
+        if (probabilitiesTask != null) {
+            probabilitiesTask.cancel(true);
+            probabilitiesTask = null;
+        }
+        if (!probabilitiesPending) {
+            probabilitiesPending = true;
+            SwingUtilities.invokeLater(this::calculateProbabilities);
         }
+    }
 
-        // Get tiles below
-        if (tile.getRow() < rows - 1) {
-            // Bottom middle tile
-            Tile bottomMiddle = buttons[tile.getRow() + 1][tile.getColumn()];
-            if (bottomMiddle.getNumber() == 0) {
-                if (!bottomMiddle.getRevealed()) {
-                    revealSurroundingTiles(bottomMiddle);
-                }
-            } else {
-                bottomMiddle.setRevealed(true);
-            }
+    /**
+     * Starts calculating the probabilities in the background, they are shown once they are ready.
+     */
+    private void calculateProbabilities() {
+        probabilitiesPending = false;
+        if (!probabilitiesButton.isSelected() || !engine.isStarted() || engine.isEnded()) {
+            boardPanel.setProbabilities(null);
+            return;
+        }
 
-            // Bottom left tile
-            if (tile.getColumn() > 0) {
-                Tile bottomLeft = buttons[tile.getRow() + 1][tile.getColumn() - 1];
-                if (bottomLeft.getNumber() == 0) {
-                    if (!bottomLeft.getRevealed()) {
-                        revealSurroundingTiles(bottomLeft);
-                    }
-                } else {
-                    bottomLeft.setRevealed(true);
-                }
+        int version = probabilitiesVersion;
+        probabilitiesTask = mineProbabilities.calculateAsync(board, result -> {
+            if (version == probabilitiesVersion) {
+                probabilitiesTask = null;
+                boardPanel.setProbabilities(result);
             }
+        });
+    }
 
-            // Bottom right tile
-            if (tile.getColumn() < cols - 1) {
-                Tile bottomRight = buttons[tile.getRow() + 1][tile.getColumn() + 1];
-                if (bottomRight.getNumber() == 0) {
-                    if (!bottomRight.getRevealed()) {
-                        revealSurroundingTiles(bottomRight);
-                    }
-                } else {
-                    bottomRight.setRevealed(true);
-                }
-            }
+    /**
+     * Copies the code of the board to the clipboard and shows it, so it can be shared.
+     */
+    private void copyCode() {
+        if (!engine.isMinesPlaced()) {
+            JOptionPane.showMessageDialog(this, "The bombs are placed when the first tile is revealed, reveal a tile first.", "Copy code", JOptionPane.INFORMATION_MESSAGE);
+            return;
         }
 
-        // Get left tile
-        if (tile.getColumn() > 0) {
-            Tile leftTile = buttons[tile.getRow()][tile.getColumn() - 1];
-            if (leftTile.getNumber() == 0) {
-                if (!leftTile.getRevealed()) {
-                    revealSurroundingTiles(leftTile);
-                }
-            } else {
-                leftTile.setRevealed(true);
-            }
+        String code = BoardCodec.toCode(board);
+        try {
+            Toolkit.getDefaultToolkit().getSystemClipboard().setContents(new StringSelection(code), null);
+        } catch (IllegalStateException e) {
+            e.printStackTrace(); // Ignore exception, the code is still shown below
         }
 
-        // Get right tile
-        if (tile.getColumn() < cols - 1) {
-            Tile rightTile = buttons[tile.getRow()][tile.getColumn() + 1];
-            if (rightTile.getNumber() == 0) {
-                if (!rightTile.getRevealed()) {
-                    revealSurroundingTiles(rightTile);
-                }
-            } else {
-                rightTile.setRevealed(true);
-            }
-        }
+        JTextField codeField = new JTextField(code, 40);
+        codeField.setEditable(false);
+        codeField.selectAll();
+        JOptionPane.showMessageDialog(this, new Object[] {"Copied the code of this board:", codeField}, "Copy code", JOptionPane.INFORMATION_MESSAGE);
     }
 
     /**
-     * Refreshes a board when a player changes any tiles.
-     * Color tiles, adds "F" to flagged tiles.
+     * Points out a tile that is certainly safe, or a tile that certainly has a bomb if there are no safe tiles.
      */
-    private void refreshBoard() {
-        for (int r = 0; r < rows; r++) {
-            for (int c = 0; c < cols; c++) {
-                Tile tile = buttons[r][c];
-                if (tile.getRevealed()) {
-                    tile.setEnabled(false);
-                    if (tile.getNumber() != 0) {
-                        tile.setText(String.valueOf(tile.getNumber()));
-                        switch (tile.getNumber()) {
-                            case 1 -> tile.setBackground(new Color(60, 0, 247));
-                            case 2 -> tile.setBackground(new Color(9, 131, 8));
-                            case 3 -> tile.setBackground(new Color(245, 0, 18));
-                            case 4 -> tile.setBackground(new Color(26, 0, 127));
-                            case 5 -> tile.setBackground(new Color(124, 0, 6));
-                            case 6 -> tile.setBackground(new Color(29, 128, 128));
-                            case 7 -> tile.setBackground(new Color(0, 0, 0));
-                            case 8 -> tile.setBackground(new Color(128, 128, 128));
-                        }
-                    }
-                } else if (tile.getHasFlag()) {
-                    tile.setText("F");
-                }
+    private void showHint() {
+        if (engine.isEnded()) {
+            return;
+        }
+        if (!engine.isStarted()) {
+            JOptionPane.showMessageDialog(this, "Click on any tile to start, the first tile is always blank.", "Hint", JOptionPane.INFORMATION_MESSAGE);
+            return;
+        }
+
+        Solver solver = getSolver();
+        solver.solve();
+        CellList safeCells = solver.getSafeCells();
+        CellList mineCells = solver.getMineCells();
+        if (!safeCells.isEmpty()) {
+            boardPanel.setHighlightedCell(safeCells.get(0));
+            return;
+        }
+
+        // Point out a bomb that hasn't been flagged yet
+        for (int i = 0; i < mineCells.size(); i++) {
+            int cell = mineCells.get(i);
+            if (!board.isFlagged(board.getRow(cell), board.getColumn(cell))) {
+                boardPanel.setHighlightedCell(cell);
+                return;
             }
         }
+        JOptionPane.showMessageDialog(this, "There are no certain moves, you have to guess.", "Hint", JOptionPane.INFORMATION_MESSAGE);
     }
 
     /**
-     * Determines if the current board has been completed.
-     * @return if all normal tiles have been revealed.
+     * Reveals every tile that is certainly safe, repeating until there are no more certain moves.
+     * Tiles that the player flagged are left alone.
      */
-    private boolean hasWin() {
-        boolean flag = true;
-        loop:
-            for (int r = 0; r < rows; r++) {
-                for (int c = 0; c < cols; c++) {
-                    Tile tile = buttons[r][c];
-                    // Detect if a normal tile hasn't been revealed
-                    if (!tile.getHasBomb() && !tile.getRevealed()) {
-                        flag = false;
-                        break loop;
-                    }
+    private void playSafeMoves() {
+        if (engine.isEnded() || !engine.isStarted()) {
+            return;
+        }
+        boardPanel.setHighlightedCell(-1);
+
+        Solver solver = getSolver();
+        boolean progress = true;
+        while (progress && !engine.isEnded()) {
+            progress = false;
+            solver.solve();
+            int[] safeCells = solver.getSafeCells().toArray();
+            for (int cell : safeCells) {
+                int row = board.getRow(cell);
+                int col = board.getColumn(cell);
+                if (board.isRevealed(row, col) || board.isFlagged(row, col)) {
+                    continue;
                 }
+                onLeftClick(row, col);
+                progress = true;
             }
+        }
+        checkForWin();
+    }
 
-        return flag;
+    private Solver getSolver() {
+        if (solver == null) {
+            solver = new Solver(board);
+        }
+        return solver;
     }
 
     /**
      * Reveals all tiles to the player.
-     * Bombs are labeled "B", other squares are labeled by their number.
+     * Bombs are drawn as bombs, other squares are labeled by their number.
      */
     private void revealAllTiles() {
-        for (int r = 0; r < rows; r++) {
-            for (int c = 0; c < cols; c++) {
-                Tile tile = buttons[r][c];
-                tile.setEnabled(false);
-                tile.setRevealed(true);
-
-                if (tile.getHasBomb()) {
-                    tile.setText("B");
-                    continue;
-                }
-
-                if (tile.getNumber() == 0) {
-                    continue;
-                }
-
-                tile.setText(String.valueOf(tile.getNumber()));
-                switch (tile.getNumber()) {
-                    case 1 -> tile.setBackground(new Color(60, 0, 247));
-                    case 2 -> tile.setBackground(new Color(9, 131, 8));
-                    case 3 -> tile.setBackground(new Color(245, 0, 18));
-                    case 4 -> tile.setBackground(new Color(26, 0, 127));
-                    case 5 -> tile.setBackground(new Color(124, 0, 6));
-                    case 6 -> tile.setBackground(new Color(29, 128, 128));
-                    case 7 -> tile.setBackground(new Color(0, 0, 0));
-                    case 8 -> tile.setBackground(new Color(128, 128, 128));
-                }
-            }
-        }
+        boardPanel.revealAll();
     }
 }
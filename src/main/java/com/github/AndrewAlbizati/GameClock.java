@@ -0,0 +1,113 @@
+package com.github.AndrewAlbizati;
+
+import javax.swing.*;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Measures how long a game takes using System.nanoTime(), so the time is exact no matter how late the display is refreshed.
+ * Every clock shares one daemon thread that only tells the Event Dispatch Thread when to refresh the display.
+ * Apart from the constructor, the methods must be called on the Event Dispatch Thread.
+ */
+public class GameClock {
+    private static final ScheduledExecutorService TICKER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "game-clock");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private long startNanos = 0;
+    private long stopNanos = 0;
+    private boolean running = false;
+
+    private ScheduledFuture<?> ticking = null;
+    private final AtomicBoolean refreshPending = new AtomicBoolean(false);
+
+    /**
+     * Starts measuring from now. Does nothing if the clock is already running.
+     */
+    public void start() {
+        start(0);
+    }
+
+    /**
+     * Starts measuring as if the clock had been started some time ago, used to continue a saved game.
+     * Does nothing if the clock is already running.
+     * @param elapsedMillis The milliseconds that have already passed.
+     */
+    public void start(long elapsedMillis) {
+        if (running) {
+            return;
+        }
+        startNanos = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(elapsedMillis);
+        running = true;
+    }
+
+    /**
+     * Stops measuring, the elapsed time stays the same afterwards. Also stops refreshing the display.
+     */
+    public void stop() {
+        if (running) {
+            stopNanos = System.nanoTime();
+            running = false;
+        }
+        stopTicking();
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * @return The milliseconds from start() until now, or until stop() if the clock was stopped.
+     */
+    public long getElapsedMillis() {
+        long end = running ? System.nanoTime() : stopNanos;
+        return TimeUnit.NANOSECONDS.toMillis(end - startNanos);
+    }
+
+    /**
+     * Calls refresh on the Event Dispatch Thread regularly until stopTicking() or stop() is called.
+     * If the Event Dispatch Thread is busy, refreshes are skipped instead of piling up.
+     * @param refresh Updates the display, for example with getElapsedMillis().
+     * @param periodMillis The milliseconds between refreshes.
+     */
+    public void startTicking(Runnable refresh, long periodMillis) {
+        stopTicking();
+        ticking = TICKER.scheduleAtFixedRate(() -> {
+            if (refreshPending.compareAndSet(false, true)) {
+                SwingUtilities.invokeLater(() -> {
+                    refreshPending.set(false);
+                    refresh.run();
+                });
+            }
+        }, 0, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public void stopTicking() {
+        if (ticking != null) {
+            ticking.cancel(false);
+            ticking = null;
+        }
+    }
+
+    /**
+     * @return The time in seconds with three decimals, for example "12.345".
+     */
+    public static String format(long millis) {
+        return String.format(Locale.ROOT, "%d.%03d", millis / 1000, millis % 1000);
+    }
+
+    /**
+     * Reads a time written by format(). Whole seconds saved by older versions are read as well.
+     * @return The time in milliseconds.
+     * @throws NumberFormatException If the text isn't a time.
+     */
+    public static long parseMillis(String text) {
+        return Math.round(Double.parseDouble(text.trim()) * 1000);
+    }
+}
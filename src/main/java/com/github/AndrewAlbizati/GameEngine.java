@@ -0,0 +1,506 @@
+package com.github.AndrewAlbizati;
+
+import java.util.Random;
+
+/**
+ * The rules of a game of Minesweeper, independent of any user interface.
+ * Handles the first click, revealing tiles, chording, placing flags, and detecting wins and losses.
+ * Moves can be undone and redone once a history limit is set.
+ */
+public class GameEngine {
+    // The state of the game kept with every move in the history
+    private static final int STARTED = 1;
+    private static final int ENDED = 2;
+    private static final int WON = 4;
+    private static final int FLAG_MOVE = 1 << 6; // The move placed or removed a flag, other moves reveal tiles
+
+    private final Board board;
+    private final Random rand;
+
+    private long seed = 0;
+    private boolean minesPlaced = false;
+    private boolean gameStarted = false;
+    private boolean gameEnded = false;
+    private boolean won = false;
+    private int flagsRemaining;
+    private int clicks = 0;
+
+    private final CellList flaggedCells = new CellList(1);
+    private final CellList chordedCells = new CellList();
+
+    private MoveHistory history = null;
+    private final CellList historyCells = new CellList();
+    private CellList changedCells = flaggedCells;
+
+    /**
+     * Sets up a game with the size and amount of mines of a difficulty.
+     * @param difficulty The difficulty of the game.
+     */
+    public GameEngine(Difficulties difficulty) {
+        this(difficulty.rows, difficulty.columns, difficulty.mines);
+    }
+
+    public GameEngine(int rows, int cols, int mines) {
+        this(rows, cols, mines, new Random().nextLong());
+    }
+
+    /**
+     * Sets up a game with a newly generated board.
+     * @param rows The amount of rows on the board.
+     * @param cols The amount of columns on the board.
+     * @param mines The amount of mines on the board.
+     * @param seed The seed used to place the mines. The same seed and first click always give the same board.
+     */
+    public GameEngine(int rows, int cols, int mines, long seed) {
+        this(rows, cols, mines, seed, Topology.Shape.SQUARE);
+    }
+
+    /**
+     * Sets up a game with a newly generated board of some shape.
+     * @param rows The amount of rows on the board.
+     * @param cols The amount of columns on the board.
+     * @param mines The amount of mines on the board.
+     * @param seed The seed used to place the mines. The same seed and first click always give the same board.
+     * @param shape Which tiles are next to each other.
+     */
+    public GameEngine(int rows, int cols, int mines, long seed, Topology.Shape shape) {
+        this.board = new Board(rows, cols, mines, shape);
+        this.rand = new Random(seed);
+        newGame(seed);
+    }
+
+    /**
+     * Sets up a game on a board whose mines have already been placed, for example a board without guessing.
+     * The first click doesn't move any mines.
+     * @param board The board, every tile is hidden and every flag is removed.
+     */
+    public GameEngine(Board board) {
+        this.board = board;
+        this.rand = new Random();
+        board.hideAll();
+        gameStarted = false;
+        gameEnded = false;
+        won = false;
+        flagsRemaining = board.getMines();
+        minesPlaced = true;
+    }
+
+    /**
+     * Sets up a game that was saved while it was in progress.
+     * @param board The board with its revealed tiles and flags, and its mines if they have been placed.
+     * @param seed The seed of the game.
+     * @param minesPlaced If the mines have been placed. If not, they are placed from the seed on the first click.
+     * @param clicks The amount of clicks that changed the board so far.
+     */
+    public GameEngine(Board board, long seed, boolean minesPlaced, int clicks) {
+        this.board = board;
+        this.rand = new Random(seed);
+        this.seed = seed;
+        this.minesPlaced = minesPlaced;
+        this.gameStarted = board.getRevealedSafeCells() > 0;
+        this.clicks = clicks;
+
+        int flags = 0;
+        for (long word : board.copyFlags()) {
+            flags += Long.bitCount(word);
+        }
+        this.flagsRemaining = board.getMines() - flags;
+    }
+
+    /**
+     * Resets the game with a brand-new board, using the next seed from the current one.
+     */
+    public void newGame() {
+        newGame(rand.nextLong());
+    }
+
+    /**
+     * Resets the game with a brand-new board. Removes all flags and hides all tiles.
+     * The mines are placed when the first tile is revealed.
+     * @param seed The seed used to place the mines.
+     */
+    public void newGame(long seed) {
+        this.seed = seed;
+        rand.setSeed(seed);
+        board.clear();
+        minesPlaced = false;
+        gameStarted = false;
+        gameEnded = false;
+        won = false;
+        flagsRemaining = board.getMines();
+        clicks = 0;
+        clearHistory();
+    }
+
+    /**
+     * Resets the game with mines that were placed somewhere else, for example by NoGuessGenerator.
+     * Removes all flags and hides all tiles. The first click doesn't move any mines.
+     * @param mines The mines in the format returned by Board.copyMines(), for a board of the same size.
+     */
+    public void newGame(long[] mines) {
+        board.setMines(mines);
+        board.hideAll();
+        seed = 0;
+        minesPlaced = true;
+        gameStarted = false;
+        gameEnded = false;
+        won = false;
+        flagsRemaining = board.getMines();
+        clicks = 0;
+        clearHistory();
+    }
+
+    /**
+     * Places the mines the same way as a game with a seed does when a tile is revealed first.
+     * @param board The board, its mines are replaced.
+     * @param seed The seed of the game.
+     * @param firstRow The row of the first tile revealed.
+     * @param firstCol The column of the first tile revealed.
+     */
+    public static void placeMines(Board board, long seed, int firstRow, int firstCol) {
+        board.placeMines(new Random(seed), firstRow, firstCol);
+    }
+
+    /**
+     * @return The seed the mines were placed with, 0 for boards that were created elsewhere.
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * @return if the mines are on the board, otherwise they are placed on the first click.
+     */
+    public boolean isMinesPlaced() {
+        return minesPlaced;
+    }
+
+    public Board getBoard() {
+        return board;
+    }
+
+    public boolean isStarted() {
+        return gameStarted;
+    }
+
+    public boolean isEnded() {
+        return gameEnded;
+    }
+
+    public boolean isWon() {
+        return gameEnded && won;
+    }
+
+    public boolean isLost() {
+        return gameEnded && !won;
+    }
+
+    public int getFlagsRemaining() {
+        return flagsRemaining;
+    }
+
+    /**
+     * @return The amount of clicks that changed the board this game.
+     */
+    public int getClicks() {
+        return clicks;
+    }
+
+    /**
+     * @return The tiles that changed during the last click that changed the board.
+     * The list is reused, so it is only valid until the next click.
+     */
+    public CellList getChangedCells() {
+        return changedCells;
+    }
+
+    /**
+     * The state of a game at one point, used to go back to that point later.
+     * The mines aren't included, so it can only be restored in the same game.
+     */
+    public static class Snapshot {
+        private final long[] revealed;
+        private final long[] flags;
+        private final boolean gameStarted;
+        private final boolean gameEnded;
+        private final boolean won;
+        private final int flagsRemaining;
+        private final int clicks;
+
+        private Snapshot(GameEngine engine) {
+            this.revealed = engine.board.copyRevealed();
+            this.flags = engine.board.copyFlags();
+            this.gameStarted = engine.gameStarted;
+            this.gameEnded = engine.gameEnded;
+            this.won = engine.won;
+            this.flagsRemaining = engine.flagsRemaining;
+            this.clicks = engine.clicks;
+        }
+    }
+
+    /**
+     * @return The current state of the game.
+     * @throws IllegalStateException If the mines haven't been placed yet.
+     */
+    public Snapshot snapshot() {
+        if (!minesPlaced) {
+            throw new IllegalStateException("The mines haven't been placed yet");
+        }
+        return new Snapshot(this);
+    }
+
+    /**
+     * Goes back to a state returned by snapshot() during this game.
+     * @param snapshot The state of the game.
+     * @throws IllegalStateException If the mines haven't been placed yet, for example after newGame().
+     */
+    public void restore(Snapshot snapshot) {
+        if (!minesPlaced) {
+            throw new IllegalStateException("The mines haven't been placed yet");
+        }
+        board.restore(snapshot.revealed, snapshot.flags);
+        gameStarted = snapshot.gameStarted;
+        gameEnded = snapshot.gameEnded;
+        won = snapshot.won;
+        flagsRemaining = snapshot.flagsRemaining;
+        clicks = snapshot.clicks;
+        changedCells = flaggedCells;
+        flaggedCells.clear();
+        clearHistory();
+    }
+
+    /**
+     * Handles when a player left-clicks on a tile. It can win the game, end the game, or reveal tiles.
+     * @param r The row of the tile.
+     * @param c The column of the tile.
+     * @return if the board changed.
+     */
+    public boolean leftClick(int r, int c) {
+        if (gameEnded || board.isFlagged(r, c) || board.isRevealed(r, c)) {
+            return false; // Ignore when a player left-clicks a tile with a flag
+        }
+
+        GameEvents.RevealEvent revealEvent = new GameEvents.RevealEvent();
+        revealEvent.begin();
+        revealEvent.firstClick = !gameStarted;
+        int before = getStatus();
+
+        // Place the mines around the first tile revealed so that it is a blank space
+        // Prevents game from instantly ending
+        if (!gameStarted) {
+            if (!minesPlaced) {
+                GameEvents.MinePlacementEvent placementEvent = new GameEvents.MinePlacementEvent();
+                placementEvent.begin();
+                board.placeMines(rand, r, c); // Same as placeMines(board, seed, r, c), rand hasn't been used since newGame()
+                minesPlaced = true;
+                placementEvent.tiles = board.getCells();
+                placementEvent.mines = board.getMines();
+                placementEvent.commit();
+            }
+            gameStarted = true;
+        }
+
+        changedCells = board.reveal(r, c);
+        clicks++;
+        checkEnd(board.hasMine(r, c));
+        record(0, before);
+
+        revealEvent.row = r;
+        revealEvent.column = c;
+        revealEvent.revealedTiles = changedCells.size();
+        revealEvent.commit();
+        return true;
+    }
+
+    /**
+     * Handles when a player chords on a revealed number: if as many of its neighbors are flagged as its number,
+     * every other hidden neighbor is revealed. A wrong flag can make this reveal a mine and end the game.
+     * @param r The row of the tile.
+     * @param c The column of the tile.
+     * @return if the board changed.
+     */
+    public boolean chord(int r, int c) {
+        if (gameEnded || !board.isRevealed(r, c) || board.hasMine(r, c)) {
+            return false;
+        }
+        int number = board.getNumber(r, c);
+        if (number == 0) {
+            return false;
+        }
+
+        int cell = board.index(r, c);
+        int[] offsets = board.getTopology().offsets(cell);
+        int flags = 0;
+        for (int offset : offsets) {
+            if (board.isFlagged(cell + offset)) {
+                flags++;
+            }
+        }
+        if (flags != number) {
+            return false;
+        }
+
+        // Each reveal reuses the board's list, so the tiles are collected in a list of their own
+        chordedCells.clear();
+        boolean hitMine = false;
+        for (int offset : offsets) {
+            CellList revealed = board.reveal(cell + offset);
+            for (int i = 0; i < revealed.size(); i++) {
+                chordedCells.add(revealed.get(i));
+            }
+            hitMine |= !revealed.isEmpty() && board.hasMine(cell + offset);
+        }
+        if (chordedCells.isEmpty()) {
+            return false; // Every neighbor was already revealed or flagged
+        }
+
+        int before = getStatus();
+        changedCells = chordedCells;
+        clicks++;
+        checkEnd(hitMine);
+        record(0, before);
+        return true;
+    }
+
+    /**
+     * Ends the game if a mine was revealed or every safe tile has been revealed.
+     * @param hitMine If the last click revealed a mine.
+     */
+    private void checkEnd(boolean hitMine) {
+        if (hitMine) {
+            gameEnded = true;
+            won = false;
+            return;
+        }
+
+        GameEvents.WinCheckEvent winCheckEvent = new GameEvents.WinCheckEvent();
+        winCheckEvent.begin();
+        if (board.hasWin()) {
+            gameEnded = true;
+            won = true;
+        }
+        winCheckEvent.won = won;
+        winCheckEvent.commit();
+    }
+
+    /**
+     * Handles when a player right-clicks on a tile. It can place a flag or remove a flag.
+     * @param r The row of the tile.
+     * @param c The column of the tile.
+     * @return if the board changed.
+     */
+    public boolean rightClick(int r, int c) {
+        if (gameEnded || board.isRevealed(r, c)) {
+            return false;
+        }
+
+        if (board.isFlagged(r, c)) {
+            board.setFlagged(r, c, false);
+            flagsRemaining++;
+        } else {
+            board.setFlagged(r, c, true);
+            flagsRemaining--;
+        }
+
+        clicks++;
+        flaggedCells.clear();
+        flaggedCells.add(board.index(r, c));
+        changedCells = flaggedCells;
+        record(FLAG_MOVE, getStatus());
+        return true;
+    }
+
+    /**
+     * Keeps the moves from now on so they can be undone and redone. Costs a little time and memory for every move,
+     * so it is off unless this is called.
+     * @param maxBytes The most memory the moves may take, the oldest moves are forgotten past it. 0 to stop keeping moves.
+     */
+    public void setHistoryLimit(int maxBytes) {
+        history = maxBytes > 0 ? new MoveHistory(maxBytes) : null;
+    }
+
+    public boolean canUndo() {
+        return history != null && history.canUndo();
+    }
+
+    public boolean canRedo() {
+        return history != null && history.canRedo();
+    }
+
+    /**
+     * Takes back the last move: the tiles it revealed are hidden again, or its flag is removed or put back.
+     * A game that the move ended can be continued. Takes time proportional to the tiles the move changed.
+     * @return If there was a move to undo. The tiles it changed are then in getChangedCells().
+     */
+    public boolean undo() {
+        if (!canUndo()) {
+            return false;
+        }
+        int info = history.undo(historyCells);
+        apply(info, false);
+        setStatus(info >>> 3);
+        clicks--;
+        return true;
+    }
+
+    /**
+     * Makes the last move that was undone again.
+     * @return If there was a move to redo. The tiles it changed are then in getChangedCells().
+     */
+    public boolean redo() {
+        if (!canRedo()) {
+            return false;
+        }
+        int info = history.redo(historyCells);
+        apply(info, true);
+        setStatus(info);
+        clicks++;
+        return true;
+    }
+
+    /**
+     * Reveals or hides the tiles of a move from the history, or switches its flag.
+     */
+    private void apply(int info, boolean redo) {
+        for (int i = 0; i < historyCells.size(); i++) {
+            int cell = historyCells.get(i);
+            if ((info & FLAG_MOVE) != 0) {
+                int r = board.getRow(cell);
+                int c = board.getColumn(cell);
+                boolean flagged = !board.isFlagged(r, c);
+                board.setFlagged(r, c, flagged);
+                flagsRemaining += flagged ? -1 : 1;
+            } else {
+                board.setRevealed(cell, redo);
+            }
+        }
+        changedCells = historyCells;
+    }
+
+    /**
+     * Adds the move that was just made to the history.
+     * @param kind FLAG_MOVE or 0.
+     * @param before The status of the game before the move.
+     */
+    private void record(int kind, int before) {
+        if (history != null) {
+            history.record(kind | before << 3 | getStatus(), changedCells);
+        }
+    }
+
+    private void clearHistory() {
+        if (history != null) {
+            history.clear();
+        }
+    }
+
+    private int getStatus() {
+        return (gameStarted ? STARTED : 0) | (gameEnded ? ENDED : 0) | (won ? WON : 0);
+    }
+
+    private void setStatus(int status) {
+        gameStarted = (status & STARTED) != 0;
+        gameEnded = (status & ENDED) != 0;
+        won = (status & WON) != 0;
+    }
+}
@@ -0,0 +1,107 @@
+package com.github.AndrewAlbizati;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JDK Flight Recorder events for the work done by a click. They cost almost nothing unless a recording is running,
+ * for example one started with -XX:StartFlightRecording or from JDK Mission Control.
+ *
+ * A click (ClickEvent) contains the reveal (RevealEvent), which contains placing the mines on the first click
+ * (MinePlacementEvent) and the win check (WinCheckEvent). Painting (PaintEvent) happens after the click,
+ * and files are written in the background (PersistenceEvent).
+ */
+public final class GameEvents {
+    private static final String CATEGORY = "Minesweeper";
+
+    private GameEvents() {
+    }
+
+    @Name("com.github.AndrewAlbizati.Click")
+    @Label("Click")
+    @Description("A click on a tile, from the mouse being released until the board is updated")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    public static class ClickEvent extends Event {
+        @Label("Row")
+        public int row;
+
+        @Label("Column")
+        public int column;
+
+        @Label("Button")
+        public String button;
+
+        @Label("Changed Tiles")
+        public int changedTiles;
+    }
+
+    @Name("com.github.AndrewAlbizati.Reveal")
+    @Label("Reveal")
+    @Description("Revealing a tile and flood-filling the blank tiles around it")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    public static class RevealEvent extends Event {
+        @Label("Row")
+        public int row;
+
+        @Label("Column")
+        public int column;
+
+        @Label("Revealed Tiles")
+        public int revealedTiles;
+
+        @Label("First Click")
+        public boolean firstClick;
+    }
+
+    @Name("com.github.AndrewAlbizati.MinePlacement")
+    @Label("Mine Placement")
+    @Description("Placing the mines around the first tile revealed")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    public static class MinePlacementEvent extends Event {
+        @Label("Tiles")
+        public int tiles;
+
+        @Label("Mines")
+        public int mines;
+    }
+
+    @Name("com.github.AndrewAlbizati.WinCheck")
+    @Label("Win Check")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    public static class WinCheckEvent extends Event {
+        @Label("Won")
+        public boolean won;
+    }
+
+    @Name("com.github.AndrewAlbizati.Paint")
+    @Label("Paint")
+    @Description("Painting the visible part of the board")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    public static class PaintEvent extends Event {
+        @Label("Painted Tiles")
+        public int paintedTiles;
+    }
+
+    @Name("com.github.AndrewAlbizati.Persistence")
+    @Label("Persistence")
+    @Description("Writing or reading a saved game, the game history or a replay")
+    @Category(CATEGORY)
+    public static class PersistenceEvent extends Event {
+        @Label("Operation")
+        public String operation;
+
+        @Label("Bytes")
+        @DataAmount
+        public long bytes;
+    }
+}
@@ -0,0 +1,496 @@
+package com.github.AndrewAlbizati;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.CRC32;
+
+/**
+ * Every finished game, stored in a binary file that is only ever appended to.
+ * The file starts with a header, followed by records of RECORD_SIZE bytes that each end with a CRC32 of the record.
+ * A record that was only partly written when the program stopped is cut off the next time the file is opened,
+ * and records that don't match their CRC are skipped.
+ *
+ * The won games of every difficulty are kept in memory as a sorted array of times, so best times and percentiles
+ * don't need to read the file. The file is read and written by one background thread, never the Event Dispatch Thread.
+ */
+public class GameHistory {
+    public static final String FILE_NAME = "minesweeper-history.bin";
+    private static final String OLD_FILE_NAME = "minesweeper-lowest-times.properties";
+
+    private static final int MAGIC = 0x4D534748; // "MSGH"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 8;
+    private static final int RECORD_SIZE = 30;
+    private static final byte CUSTOM = -1;
+
+    // The oldest games are removed once there are this many, except for the best time of each difficulty
+    private static final int MAX_RECORDS = 1_000_000;
+    private static final int COMPACT_SLACK = 100_000;
+
+    private static GameHistory instance = null;
+
+    /**
+     * A finished game.
+     * @param difficulty The difficulty of the game, null for custom boards.
+     * @param won If the game was won.
+     * @param durationMillis How long the game took in milliseconds.
+     * @param clicks The amount of clicks that changed the board.
+     * @param seed The seed the mines were placed with, 0 if unknown.
+     * @param finishedAt When the game ended, in milliseconds since the epoch.
+     */
+    public record Entry(Difficulties difficulty, boolean won, long durationMillis, int clicks, long seed, long finishedAt) {
+    }
+
+    private final Path path;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "game-history");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Map<Difficulties, Times> wonTimes = new EnumMap<>(Difficulties.class);
+    private final Map<Difficulties, Integer> games = new EnumMap<>(Difficulties.class);
+    private FileChannel channel = null;
+    private CompletableFuture<GameHistory> loaded = null;
+    private int records = 0;
+
+    /**
+     * @param path The file the history is stored in.
+     */
+    public GameHistory(Path path) {
+        this.path = path;
+        for (Difficulties difficulty : Difficulties.values()) {
+            wonTimes.put(difficulty, new Times());
+            games.put(difficulty, 0);
+        }
+    }
+
+    /**
+     * @return The history shared by the whole program, stored in the working directory.
+     */
+    public static synchronized GameHistory getInstance() {
+        if (instance == null) {
+            instance = new GameHistory(Path.of(FILE_NAME));
+        }
+        return instance;
+    }
+
+    /**
+     * Reads the file in the background the first time it is called.
+     * @return Completes once the history can be used.
+     */
+    public synchronized CompletableFuture<GameHistory> load() {
+        if (loaded == null) {
+            loaded = CompletableFuture.supplyAsync(() -> {
+                GameEvents.PersistenceEvent event = new GameEvents.PersistenceEvent();
+                event.begin();
+                try {
+                    open();
+                    event.operation = "read history";
+                    event.bytes = channel.size();
+                    event.commit();
+                } catch (IOException e) {
+                    e.printStackTrace(); // Ignore, games won't be saved
+                }
+                return this;
+            }, executor);
+        }
+        return loaded;
+    }
+
+    /**
+     * Adds a finished game to the file in the background. The game is saved once the returned future completes.
+     * @param entry The game.
+     */
+    public CompletableFuture<Void> add(Entry entry) {
+        return load().thenAcceptAsync(history -> {
+            try {
+                append(entry);
+                if (records > MAX_RECORDS + COMPACT_SLACK) {
+                    compact();
+                }
+            } catch (IOException e) {
+                e.printStackTrace(); // Ignore, this game won't be saved
+            }
+        }, executor);
+    }
+
+    /**
+     * @return Completes once the history is loaded and every game added before this call is in it.
+     */
+    public CompletableFuture<GameHistory> loadLatest() {
+        return load().thenApplyAsync(history -> history, executor);
+    }
+
+    /**
+     * @return The lowest time of a won game in milliseconds, or -1 if no games were won.
+     */
+    public synchronized long getBestMillis(Difficulties difficulty) {
+        Times times = wonTimes.get(difficulty);
+        return times.size == 0 ? -1 : times.values[0];
+    }
+
+    /**
+     * @param percentile Between 0 and 100, for example 50 for the median.
+     * @return The time in milliseconds that this percentage of won games was at least as fast as, or -1 if no games were won.
+     */
+    public synchronized long getPercentileMillis(Difficulties difficulty, double percentile) {
+        Times times = wonTimes.get(difficulty);
+        if (times.size == 0) {
+            return -1;
+        }
+        int rank = (int) Math.ceil(percentile / 100 * times.size) - 1;
+        return times.values[Math.min(Math.max(rank, 0), times.size - 1)];
+    }
+
+    /**
+     * @return The percentage of won games that were slower than a time.
+     */
+    public synchronized double getPercentSlowerThan(Difficulties difficulty, long millis) {
+        Times times = wonTimes.get(difficulty);
+        if (times.size == 0) {
+            return 0;
+        }
+        int faster = times.countAtMost(millis);
+        return 100.0 * (times.size - faster) / times.size;
+    }
+
+    public synchronized int getGames(Difficulties difficulty) {
+        return games.get(difficulty);
+    }
+
+    public synchronized int getWins(Difficulties difficulty) {
+        return wonTimes.get(difficulty).size;
+    }
+
+    /**
+     * Opens the file and builds the index, creating the file if it doesn't exist yet.
+     */
+    private void open() throws IOException {
+        boolean exists = Files.exists(path);
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        if (!exists || channel.size() < HEADER_SIZE || !hasValidHeader()) {
+            if (exists && channel.size() > 0) {
+                // Keep a file that isn't a history instead of overwriting it
+                channel.close();
+                Files.move(path, path.resolveSibling(path.getFileName() + ".invalid"), StandardCopyOption.REPLACE_EXISTING);
+                channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            }
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putInt(VERSION).flip();
+            channel.truncate(0);
+            channel.write(header, 0);
+            channel.force(true);
+            importLowestTimes();
+            return;
+        }
+
+        int invalid = readIndex();
+        if (invalid > 0 || records > MAX_RECORDS) {
+            compact();
+        }
+    }
+
+    private boolean hasValidHeader() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        channel.read(header, 0);
+        header.flip();
+        return header.getInt() == MAGIC && header.getInt() == VERSION;
+    }
+
+    /**
+     * Reads every record into the index, cutting off a record that was only partly written.
+     * @return The amount of records that didn't match their CRC.
+     */
+    private int readIndex() throws IOException {
+        synchronized (this) {
+            for (Difficulties difficulty : Difficulties.values()) {
+                wonTimes.get(difficulty).size = 0;
+                games.put(difficulty, 0);
+            }
+        }
+        records = 0;
+
+        long size = channel.size();
+        long complete = HEADER_SIZE + (size - HEADER_SIZE) / RECORD_SIZE * RECORD_SIZE;
+        if (complete != size) {
+            channel.truncate(complete);
+        }
+
+        int invalid = 0;
+        ByteBuffer buffer = ByteBuffer.allocate(RECORD_SIZE * 4096);
+        CRC32 crc = new CRC32();
+        long position = HEADER_SIZE;
+        while (position < complete) {
+            buffer.clear();
+            buffer.limit((int) Math.min(buffer.capacity(), complete - position));
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, position + buffer.position()) < 0) {
+                    throw new IOException("Unexpected end of " + path);
+                }
+            }
+            position += buffer.limit();
+            buffer.flip();
+
+            synchronized (this) {
+                while (buffer.remaining() >= RECORD_SIZE) {
+                    Entry entry = readRecord(buffer, crc);
+                    if (entry == null) {
+                        invalid++;
+                    } else {
+                        index(entry);
+                    }
+                }
+            }
+        }
+
+        synchronized (this) {
+            for (Times times : wonTimes.values()) {
+                times.sort();
+            }
+        }
+        return invalid;
+    }
+
+    /**
+     * Writes a record to the end of the file and waits until it is on the disk.
+     */
+    private void append(Entry entry) throws IOException {
+        if (channel == null) {
+            throw new IOException(path + " couldn't be opened");
+        }
+
+        GameEvents.PersistenceEvent event = new GameEvents.PersistenceEvent();
+        event.begin();
+        ByteBuffer buffer = ByteBuffer.allocate(RECORD_SIZE);
+        writeRecord(buffer, entry, new CRC32());
+        buffer.flip();
+        long position = channel.size();
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+        channel.force(false);
+        event.operation = "append history";
+        event.bytes = RECORD_SIZE;
+        event.commit();
+
+        synchronized (this) {
+            index(entry);
+            Times times = wonTimes.get(entry.difficulty());
+            if (entry.won() && times != null) {
+                times.insertSorted();
+            }
+        }
+    }
+
+    /**
+     * Adds a game to the index. Won times are only appended, call Times.sort() or Times.insertSorted() afterwards.
+     */
+    private void index(Entry entry) {
+        records++;
+        if (entry.difficulty() == null) {
+            return;
+        }
+        games.merge(entry.difficulty(), 1, Integer::sum);
+        if (entry.won()) {
+            wonTimes.get(entry.difficulty()).add(entry.durationMillis());
+        }
+    }
+
+    /**
+     * Rewrites the file without the records that didn't match their CRC, and without the oldest records
+     * if there are more than MAX_RECORDS. The best time of each difficulty is always kept.
+     * The new file replaces the old one in a single move, so the history is never half written.
+     */
+    private void compact() throws IOException {
+        GameEvents.PersistenceEvent event = new GameEvents.PersistenceEvent();
+        event.begin();
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        Map<Difficulties, Long> best = new EnumMap<>(Difficulties.class);
+        for (Difficulties difficulty : Difficulties.values()) {
+            best.put(difficulty, getBestMillis(difficulty));
+        }
+        int skip = Math.max(records - MAX_RECORDS, 0);
+
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer outBuffer = ByteBuffer.allocate(RECORD_SIZE * 4096);
+            outBuffer.putInt(MAGIC).putInt(VERSION);
+
+            ByteBuffer buffer = ByteBuffer.allocate(RECORD_SIZE * 4096);
+            CRC32 crc = new CRC32();
+            long size = channel.size();
+            long position = HEADER_SIZE;
+            while (position < size) {
+                buffer.clear();
+                buffer.limit((int) Math.min(buffer.capacity(), size - position));
+                while (buffer.hasRemaining()) {
+                    if (channel.read(buffer, position + buffer.position()) < 0) {
+                        throw new IOException("Unexpected end of " + path);
+                    }
+                }
+                position += buffer.limit();
+                buffer.flip();
+
+                while (buffer.remaining() >= RECORD_SIZE) {
+                    Entry entry = readRecord(buffer, crc);
+                    if (entry == null) {
+                        continue;
+                    }
+                    if (skip > 0) {
+                        skip--;
+                        boolean isBest = entry.won() && entry.difficulty() != null && best.get(entry.difficulty()) == entry.durationMillis();
+                        if (!isBest) {
+                            continue;
+                        }
+                        best.put(entry.difficulty(), -1L); // Only keep one record with the best time
+                    }
+
+                    if (outBuffer.remaining() < RECORD_SIZE) {
+                        outBuffer.flip();
+                        while (outBuffer.hasRemaining()) {
+                            out.write(outBuffer);
+                        }
+                        outBuffer.clear();
+                    }
+                    writeRecord(outBuffer, entry, crc);
+                }
+            }
+
+            outBuffer.flip();
+            while (outBuffer.hasRemaining()) {
+                out.write(outBuffer);
+            }
+            out.force(true);
+        }
+
+        channel.close();
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        readIndex();
+        event.operation = "compact history";
+        event.bytes = channel.size();
+        event.commit();
+    }
+
+    /**
+     * Adds the lowest times saved by older versions as won games, so they aren't lost.
+     */
+    private void importLowestTimes() throws IOException {
+        Path oldPath = path.resolveSibling(OLD_FILE_NAME);
+        if (!Files.exists(oldPath)) {
+            return;
+        }
+
+        Properties prop = new Properties();
+        try (Reader reader = Files.newBufferedReader(oldPath)) {
+            prop.load(reader);
+        }
+        for (Difficulties difficulty : Difficulties.values()) {
+            String lowestTime = prop.getProperty(difficulty.toString().toLowerCase(), "");
+            if (lowestTime.isEmpty()) {
+                continue;
+            }
+            try {
+                append(new Entry(difficulty, true, GameClock.parseMillis(lowestTime), 0, 0, Files.getLastModifiedTime(oldPath).toMillis()));
+            } catch (NumberFormatException e) {
+                e.printStackTrace(); // Ignore this time
+            }
+        }
+    }
+
+    /**
+     * Reads the next record from a buffer.
+     * @return The game, or null if the record doesn't match its CRC.
+     */
+    private static Entry readRecord(ByteBuffer buffer, CRC32 crc) {
+        int start = buffer.position();
+        crc.reset();
+        crc.update(buffer.array(), buffer.arrayOffset() + start, RECORD_SIZE - 4);
+
+        byte difficulty = buffer.get();
+        byte won = buffer.get();
+        int durationMillis = buffer.getInt();
+        int clicks = buffer.getInt();
+        long seed = buffer.getLong();
+        long finishedAt = buffer.getLong();
+        int expected = buffer.getInt();
+
+        if ((int) crc.getValue() != expected || difficulty < CUSTOM || difficulty >= Difficulties.values().length) {
+            return null;
+        }
+        return new Entry(difficulty == CUSTOM ? null : Difficulties.values()[difficulty], won == 1, durationMillis, clicks, seed, finishedAt);
+    }
+
+    private static void writeRecord(ByteBuffer buffer, Entry entry, CRC32 crc) {
+        int start = buffer.position();
+        buffer.put(entry.difficulty() == null ? CUSTOM : (byte) entry.difficulty().ordinal());
+        buffer.put((byte) (entry.won() ? 1 : 0));
+        buffer.putInt((int) Math.min(entry.durationMillis(), Integer.MAX_VALUE));
+        buffer.putInt(entry.clicks());
+        buffer.putLong(entry.seed());
+        buffer.putLong(entry.finishedAt());
+
+        crc.reset();
+        crc.update(buffer.array(), buffer.arrayOffset() + start, RECORD_SIZE - 4);
+        buffer.putInt((int) crc.getValue());
+    }
+
+    /**
+     * The times of won games in milliseconds, kept sorted from fastest to slowest.
+     */
+    private static class Times {
+        private int[] values = new int[16];
+        private int size = 0;
+
+        private void add(long millis) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = (int) Math.min(millis, Integer.MAX_VALUE);
+        }
+
+        private void sort() {
+            Arrays.sort(values, 0, size);
+        }
+
+        /**
+         * Moves the last time added to its place in the sorted times.
+         */
+        private void insertSorted() {
+            int last = values[size - 1];
+            int place = countAtMost(last - 1);
+            System.arraycopy(values, place, values, place + 1, size - 1 - place);
+            values[place] = last;
+        }
+
+        /**
+         * @return The amount of times less than or equal to millis. Only the sorted times are searched.
+         */
+        private int countAtMost(long millis) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (values[mid] <= millis) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+}
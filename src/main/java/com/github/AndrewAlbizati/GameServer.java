@@ -0,0 +1,384 @@
+package com.github.AndrewAlbizati;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hosts games of Minesweeper for clients connected over TCP, using the messages described in Protocol.
+ * Every connection is a session with its own board, handled on its own (virtual, when available) thread.
+ *
+ * The memory of each board is estimated before it is created. A board is refused if it is larger than the
+ * budget of a session, or if it would take the boards of all sessions over the budget of the server.
+ * Sessions that send nothing for too long are closed and their boards are freed.
+ *
+ * Usage: GameServer [--port N] [--max-sessions N] [--session-kb N] [--total-mb N] [--idle-seconds N]
+ */
+public class GameServer implements Closeable {
+    private static final int BUFFER_SIZE = 1024;
+    private static final int BACKLOG = 4096;
+
+    private final ServerSocket serverSocket;
+    private final ExecutorService sessions = SessionThreads.newExecutor("game-session");
+    private final int maxSessions;
+    private final long sessionBudget;
+    private final long totalBudget;
+    private final int idleMillis;
+
+    private final AtomicInteger activeSessions = new AtomicInteger();
+    private final AtomicLong usedMemory = new AtomicLong();
+    private final AtomicLong moves = new AtomicLong();
+    private final AtomicLong evictedSessions = new AtomicLong();
+    private final AtomicLong refusedSessions = new AtomicLong();
+    private final AtomicLong malformedSessions = new AtomicLong();
+
+    /**
+     * Opens the server socket. Call start() to accept connections.
+     * @param port The port to listen on, 0 for any free port.
+     * @param maxSessions The most sessions open at the same time.
+     * @param sessionBudget The most bytes the board of one session may use.
+     * @param totalBudget The most bytes the boards of all sessions may use together.
+     * @param idleMillis The milliseconds a session can send nothing before it is closed.
+     * @throws IOException If the port can't be opened.
+     */
+    public GameServer(int port, int maxSessions, long sessionBudget, long totalBudget, int idleMillis) throws IOException {
+        this.maxSessions = maxSessions;
+        this.sessionBudget = sessionBudget;
+        this.totalBudget = totalBudget;
+        this.idleMillis = idleMillis;
+        this.serverSocket = new ServerSocket();
+        serverSocket.setReuseAddress(true);
+        serverSocket.bind(new InetSocketAddress(port), BACKLOG);
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    public int getActiveSessions() {
+        return activeSessions.get();
+    }
+
+    public long getUsedMemory() {
+        return usedMemory.get();
+    }
+
+    public long getMoves() {
+        return moves.get();
+    }
+
+    public long getEvictedSessions() {
+        return evictedSessions.get();
+    }
+
+    public long getRefusedSessions() {
+        return refusedSessions.get();
+    }
+
+    /**
+     * @return The amount of sessions closed because they sent a frame that breaks the protocol.
+     */
+    public long getMalformedSessions() {
+        return malformedSessions.get();
+    }
+
+    /**
+     * Estimates the bytes used by a board and its game: a byte per tile for the numbers, three bit sets,
+     * the row masks used to count mines, the list of revealed tiles, which can grow to an int per tile,
+     * and the Topology's byte per tile. Boards of the same size share their Topology while it is in its cache,
+     * but a session with a size no other session uses keeps one of its own, so it is always counted.
+     */
+    public static long estimateMemory(int rows, int cols) {
+        long cells = (long) rows * cols;
+        return 1024 + cells + 4 * cells / 8 + 4 * cells + cells;
+    }
+
+    /**
+     * Accepts connections on a new thread until close() is called.
+     */
+    public void start() {
+        Thread acceptThread = new Thread(this::acceptConnections, "game-server-accept");
+        acceptThread.setDaemon(true);
+        acceptThread.start();
+    }
+
+    private void acceptConnections() {
+        while (!serverSocket.isClosed()) {
+            Socket socket;
+            try {
+                socket = serverSocket.accept();
+            } catch (IOException e) {
+                if (!serverSocket.isClosed()) {
+                    e.printStackTrace(); // Ignore, keep accepting
+                }
+                continue;
+            }
+
+            if (activeSessions.incrementAndGet() > maxSessions) {
+                activeSessions.decrementAndGet();
+                refusedSessions.incrementAndGet();
+                refuse(socket, "The server is full");
+                continue;
+            }
+            sessions.execute(new Session(socket));
+        }
+    }
+
+    private static void refuse(Socket socket, String message) {
+        try (socket) {
+            Protocol.writeError(new DataOutputStream(socket.getOutputStream()), message);
+        } catch (IOException e) {
+            // Ignore, the client is gone
+        }
+    }
+
+    /**
+     * Stops accepting connections and closes every session.
+     */
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        sessions.shutdownNow();
+    }
+
+    /**
+     * A connection and the game played on it.
+     */
+    private class Session implements Runnable {
+        private final Socket socket;
+        private GameEngine engine = null;
+        private long reservedMemory = 0;
+
+        private Session(Socket socket) {
+            this.socket = socket;
+        }
+
+        @Override
+        public void run() {
+            try (socket) {
+                socket.setSoTimeout(idleMillis);
+                socket.setTcpNoDelay(true);
+                DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream(), BUFFER_SIZE));
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), BUFFER_SIZE));
+
+                try {
+                    while (true) {
+                        int length = Protocol.readLength(in, Protocol.MAX_REQUEST_LENGTH);
+                        byte type = in.readByte();
+                        if (type == Protocol.QUIT) {
+                            return;
+                        }
+                        handle(type, length, in, out);
+                        out.flush();
+                    }
+                } catch (Protocol.ProtocolException e) {
+                    // Counted instead of printed, a broken client could open any amount of sessions
+                    malformedSessions.incrementAndGet();
+                    Protocol.writeError(out, e.getMessage());
+                }
+            } catch (SocketTimeoutException e) {
+                evictedSessions.incrementAndGet(); // Idle for too long
+            } catch (EOFException | SocketException e) {
+                // Ignore, the client closed the connection
+            } catch (IOException e) {
+                e.printStackTrace(); // Ignore, the session is closed
+            } finally {
+                engine = null;
+                usedMemory.addAndGet(-reservedMemory);
+                activeSessions.decrementAndGet();
+            }
+        }
+
+        private void handle(byte type, int length, DataInputStream in, DataOutputStream out) throws IOException {
+            switch (type) {
+                case Protocol.NEW_GAME -> {
+                    expectLength(length, 20);
+                    newGame(in.readInt(), in.readInt(), in.readInt(), in.readLong(), out);
+                }
+                case Protocol.REVEAL, Protocol.FLAG, Protocol.CHORD -> {
+                    expectLength(length, 8);
+                    int row = in.readInt();
+                    int col = in.readInt();
+                    if (engine == null) {
+                        Protocol.writeError(out, "No game has been started");
+                        return;
+                    }
+                    Board board = engine.getBoard();
+                    if (row < 0 || row >= board.getRows() || col < 0 || col >= board.getColumns()) {
+                        Protocol.writeError(out, "Tile is outside the board");
+                        return;
+                    }
+                    move(type, row, col, out);
+                }
+                case Protocol.STATE -> {
+                    expectLength(length, 0);
+                    if (engine == null) {
+                        Protocol.writeError(out, "No game has been started");
+                        return;
+                    }
+                    writeState(out);
+                }
+                default -> throw new Protocol.ProtocolException("Unknown message type " + type);
+            }
+        }
+
+        private void expectLength(int length, int expected) throws IOException {
+            if (length != expected) {
+                throw new Protocol.ProtocolException("Invalid message length " + length);
+            }
+        }
+
+        private void newGame(int rows, int cols, int mines, long seed, DataOutputStream out) throws IOException {
+            try {
+                Board.validate(rows, cols, mines);
+            } catch (IllegalArgumentException e) {
+                Protocol.writeError(out, e.getMessage());
+                return;
+            }
+            long memory = estimateMemory(rows, cols);
+            if (memory > sessionBudget) {
+                Protocol.writeError(out, "The board is larger than a session can use");
+                return;
+            }
+            if (seed == 0) {
+                seed = ThreadLocalRandom.current().nextLong();
+            }
+
+            Board board = engine == null ? null : engine.getBoard();
+            if (board != null && board.getRows() == rows && board.getColumns() == cols && board.getMines() == mines) {
+                engine.newGame(seed); // Reuse the board
+            } else {
+                if (usedMemory.addAndGet(memory - reservedMemory) > totalBudget) {
+                    usedMemory.addAndGet(reservedMemory - memory);
+                    Protocol.writeError(out, "The server doesn't have enough memory for the board");
+                    return;
+                }
+                reservedMemory = memory;
+                engine = new GameEngine(rows, cols, mines, seed);
+            }
+
+            Protocol.writeHeader(out, 20, Protocol.GAME);
+            out.writeInt(rows);
+            out.writeInt(cols);
+            out.writeInt(mines);
+            out.writeLong(seed);
+        }
+
+        private void move(byte type, int row, int col, DataOutputStream out) throws IOException {
+            moves.incrementAndGet();
+            boolean changed = switch (type) {
+                case Protocol.REVEAL -> engine.leftClick(row, col);
+                case Protocol.FLAG -> engine.rightClick(row, col);
+                default -> engine.chord(row, col);
+            };
+            CellList changedCells = engine.getChangedCells();
+            int count = changed ? changedCells.size() : 0;
+
+            writeDeltaHeader(out, count);
+            Board board = engine.getBoard();
+            for (int i = 0; i < count; i++) {
+                int cell = changedCells.get(i);
+                out.writeInt(cell);
+                out.writeByte(tile(board, cell));
+            }
+        }
+
+        /**
+         * Sends every revealed or flagged tile.
+         */
+        private void writeState(DataOutputStream out) throws IOException {
+            Board board = engine.getBoard();
+            int count = 0;
+            for (int cell = 0; cell < board.getCells(); cell++) {
+                if (tile(board, cell) != Protocol.HIDDEN) {
+                    count++;
+                }
+            }
+
+            writeDeltaHeader(out, count);
+            for (int cell = 0; cell < board.getCells(); cell++) {
+                byte tile = tile(board, cell);
+                if (tile != Protocol.HIDDEN) {
+                    out.writeInt(cell);
+                    out.writeByte(tile);
+                }
+            }
+        }
+
+        private void writeDeltaHeader(DataOutputStream out, int count) throws IOException {
+            byte status = engine.isWon() ? Protocol.WON : engine.isLost() ? Protocol.LOST : Protocol.PLAYING;
+            Protocol.writeHeader(out, 9 + 5 * count, Protocol.DELTA);
+            out.writeByte(status);
+            out.writeInt(engine.getFlagsRemaining());
+            out.writeInt(count);
+        }
+
+        private byte tile(Board board, int cell) {
+            int r = board.getRow(cell);
+            int c = board.getColumn(cell);
+            if (board.isRevealed(r, c)) {
+                return board.hasMine(r, c) ? Protocol.MINE : (byte) board.getNumber(r, c);
+            }
+            return board.isFlagged(r, c) ? Protocol.FLAGGED : Protocol.HIDDEN;
+        }
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int port = 7777;
+        int maxSessions = 100_000;
+        long sessionKb = 1024;
+        long totalMb = Runtime.getRuntime().maxMemory() / 2 / (1024 * 1024);
+        int idleSeconds = 300;
+
+        try {
+            for (int i = 0; i < args.length; i++) {
+                String value = i + 1 < args.length ? args[i + 1] : "";
+                switch (args[i]) {
+                    case "--port" -> port = Integer.parseInt(value);
+                    case "--max-sessions" -> maxSessions = Integer.parseInt(value);
+                    case "--session-kb" -> sessionKb = Long.parseLong(value);
+                    case "--total-mb" -> totalMb = Long.parseLong(value);
+                    case "--idle-seconds" -> idleSeconds = Integer.parseInt(value);
+                    default -> throw new IllegalArgumentException("Unknown option: " + args[i]);
+                }
+                i++;
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println("Usage: GameServer [--port N] [--max-sessions N] [--session-kb N] [--total-mb N] [--idle-seconds N]");
+            System.exit(1);
+            return;
+        }
+
+        GameServer server = new GameServer(port, maxSessions, sessionKb * 1024, totalMb * 1024 * 1024, idleSeconds * 1000);
+        server.start();
+        System.out.println("Listening on port " + server.getPort() + (SessionThreads.isVirtual() ? " with virtual threads" : " with platform threads"));
+
+        // Print the load every 10 seconds
+        long lastMoves = 0;
+        while (true) {
+            Thread.sleep(10_000);
+            long totalMoves = server.getMoves();
+            System.out.println("Sessions: " + server.getActiveSessions()
+                    + ", moves/s: " + (totalMoves - lastMoves) / 10
+                    + ", board memory: " + server.getUsedMemory() / 1024 + " KB"
+                    + ", evicted: " + server.getEvictedSessions()
+                    + ", refused: " + server.getRefusedSessions()
+                    + ", malformed: " + server.getMalformedSessions());
+            lastMoves = totalMoves;
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.github.AndrewAlbizati;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counts durations in buckets whose width grows with the duration, so percentiles are accurate to about 3%
+ * from one microsecond to over a day while using a fixed amount of memory. Safe to use from many threads.
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 5; // 32 buckets for every power of two
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int POWERS = 33; // Up to 2^37 microseconds, over a day
+
+    private final AtomicLongArray counts = new AtomicLongArray(POWERS * SUB_BUCKETS);
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong sumNanos = new AtomicLong();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    /**
+     * Adds a duration.
+     * @param nanos The duration in nanoseconds.
+     */
+    public void record(long nanos) {
+        nanos = Math.max(nanos, 0);
+        counts.incrementAndGet(bucket(nanos / 1000));
+        total.incrementAndGet();
+        sumNanos.addAndGet(nanos);
+        maxNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    /**
+     * Removes every duration.
+     */
+    public void reset() {
+        for (int i = 0; i < counts.length(); i++) {
+            counts.set(i, 0);
+        }
+        total.set(0);
+        sumNanos.set(0);
+        maxNanos.set(0);
+    }
+
+    public long getCount() {
+        return total.get();
+    }
+
+    public long getMaxNanos() {
+        return maxNanos.get();
+    }
+
+    public double getMeanNanos() {
+        long count = total.get();
+        return count == 0 ? 0 : (double) sumNanos.get() / count;
+    }
+
+    /**
+     * @param percentile Between 0 and 100, for example 99 for the 99th percentile.
+     * @return The duration in nanoseconds that this percentage of durations was at most, 0 if there are none.
+     */
+    public long getPercentileNanos(double percentile) {
+        long count = total.get();
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max((long) Math.ceil(percentile / 100 * count), 1);
+        long seen = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return Math.min(upperBound(i) * 1000, maxNanos.get());
+            }
+        }
+        return maxNanos.get();
+    }
+
+    /**
+     * @return The amount of buckets, see getBucketCount() and getBucketUpperMicros().
+     */
+    public int getBuckets() {
+        return counts.length();
+    }
+
+    public long getBucketCount(int bucket) {
+        return counts.get(bucket);
+    }
+
+    /**
+     * @return The longest duration in microseconds counted in a bucket.
+     */
+    public long getBucketUpperMicros(int bucket) {
+        return upperBound(bucket);
+    }
+
+    /**
+     * Values below SUB_BUCKETS get a bucket each, larger values are split into SUB_BUCKETS buckets per power of two.
+     */
+    private static int bucket(long micros) {
+        if (micros < SUB_BUCKETS) {
+            return (int) micros;
+        }
+        int power = 63 - Long.numberOfLeadingZeros(micros); // >= SUB_BUCKET_BITS
+        int shift = power - SUB_BUCKET_BITS;
+        int index = (shift + 1) * SUB_BUCKETS + (int) ((micros >>> shift) - SUB_BUCKETS);
+        return Math.min(index, POWERS * SUB_BUCKETS - 1);
+    }
+
+    private static long upperBound(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        long sub = bucket % SUB_BUCKETS + SUB_BUCKETS;
+        return ((sub + 1) << shift) - 1;
+    }
+}
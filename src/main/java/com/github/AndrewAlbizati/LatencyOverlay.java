@@ -0,0 +1,106 @@
+package com.github.AndrewAlbizati;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.ActionEvent;
+import java.awt.event.KeyEvent;
+import java.util.Locale;
+
+/**
+ * Shows how long clicks take to reach the screen, from the mouse being released until the board has been painted.
+ * Meant to be the glass pane of a window, it draws over the bottom left corner and lets clicks through.
+ *
+ * Clicks are only timed while the overlay is shown, so a hidden overlay costs a single check per click.
+ * It is shown when a game opens if the program is started with -Dminesweeper.metrics=true.
+ */
+public class LatencyOverlay extends JComponent {
+    public static final String PROPERTY = "minesweeper.metrics";
+    private static final Color BACKGROUND_COLOR = new Color(0, 0, 0, 160);
+    private static final int HEIGHT = 30; // More than the height of the text, only this strip is repainted
+
+    private final LatencyHistogram histogram = new LatencyHistogram();
+    private long clickStart = 0; // When the click being timed happened, 0 if there is none
+
+    private LatencyOverlay() {
+        this.setOpaque(false);
+    }
+
+    /**
+     * Adds an overlay to a window as its glass pane. F3 shows or hides it.
+     * @param frame The window.
+     * @return The overlay, shown if the program was started with -Dminesweeper.metrics=true.
+     */
+    public static LatencyOverlay install(JFrame frame) {
+        LatencyOverlay overlay = new LatencyOverlay();
+        frame.setGlassPane(overlay);
+        overlay.setVisible(Boolean.getBoolean(PROPERTY));
+
+        JRootPane rootPane = frame.getRootPane();
+        rootPane.getInputMap(WHEN_IN_FOCUSED_WINDOW).put(KeyStroke.getKeyStroke(KeyEvent.VK_F3, 0), "toggleMetrics");
+        rootPane.getActionMap().put("toggleMetrics", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                overlay.toggle();
+            }
+        });
+        return overlay;
+    }
+
+    /**
+     * Shows the overlay if it is hidden, hides it if it is shown.
+     */
+    public void toggle() {
+        clickStart = 0;
+        setVisible(!isVisible());
+    }
+
+    /**
+     * Starts timing a click, called when the mouse is released.
+     */
+    public void clickStarted() {
+        if (isVisible()) {
+            clickStart = System.nanoTime();
+        }
+    }
+
+    /**
+     * Stops timing a click that didn't change the board, so nothing will be painted.
+     */
+    public void clickIgnored() {
+        clickStart = 0;
+    }
+
+    /**
+     * Stops timing the click, called after the board is painted.
+     */
+    public void painted() {
+        if (clickStart != 0) {
+            histogram.record(System.nanoTime() - clickStart);
+            clickStart = 0;
+            repaint(0, getHeight() - HEIGHT, getWidth(), HEIGHT);
+        }
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        String text;
+        if (histogram.getCount() == 0) {
+            text = "Click to paint: no clicks yet (F3 to hide)";
+        } else {
+            text = String.format(Locale.ROOT, "Click to paint: p50 %.1f ms, p99 %.1f ms, max %.1f ms, %d clicks (F3 to hide)",
+                    histogram.getPercentileNanos(50) / 1e6, histogram.getPercentileNanos(99) / 1e6,
+                    histogram.getMaxNanos() / 1e6, histogram.getCount());
+        }
+
+        g.setFont(Resources.SMALL_FONT);
+        FontMetrics metrics = g.getFontMetrics();
+        int width = metrics.stringWidth(text) + 12;
+        int height = metrics.getHeight() + 8;
+        int y = getHeight() - height;
+
+        g.setColor(BACKGROUND_COLOR);
+        g.fillRect(0, y, width, height);
+        g.setColor(Color.WHITE);
+        g.drawString(text, 6, y + 4 + metrics.getAscent());
+    }
+}
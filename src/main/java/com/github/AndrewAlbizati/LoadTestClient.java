@@ -0,0 +1,269 @@
+package com.github.AndrewAlbizati;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Opens many sessions to a GameServer at the same time, plays games in each with a Player,
+ * and prints how many moves the server handled per second and how long it took to answer them.
+ *
+ * Usage: LoadTestClient [--host H] [--port N] [--sessions N] [--games N] [--difficulty NAME] [--player NAME]
+ */
+public class LoadTestClient {
+    private final String host;
+    private final int port;
+    private final Difficulties difficulty;
+    private final String playerName;
+    private final int games;
+
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final AtomicLong gamesPlayed = new AtomicLong();
+    private final AtomicLong wins = new AtomicLong();
+    private final AtomicLong moves = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+
+    /**
+     * @param host The host of the server.
+     * @param port The port of the server.
+     * @param difficulty The size of the boards played.
+     * @param playerName The strategy used to play, see Simulator.createPlayer().
+     * @param games The games played in each session.
+     */
+    public LoadTestClient(String host, int port, Difficulties difficulty, String playerName, int games) {
+        this.host = host;
+        this.port = port;
+        this.difficulty = difficulty;
+        this.playerName = playerName;
+        this.games = games;
+        Simulator.createPlayer(playerName); // Fail before connecting if the name is unknown
+    }
+
+    /**
+     * Runs the sessions and waits until all of them are done.
+     * @param sessions The sessions open at the same time.
+     */
+    public void run(int sessions) throws InterruptedException {
+        ExecutorService executor = SessionThreads.newExecutor("load-test");
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < sessions; i++) {
+            long seed = i;
+            futures.add(executor.submit(() -> playSession(seed)));
+        }
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (Exception e) {
+                errors.incrementAndGet();
+            }
+        }
+        executor.shutdown();
+    }
+
+    private void playSession(long seed) {
+        Player player = Simulator.createPlayer(playerName);
+        Random rand = new Random(seed);
+        try (Socket socket = new Socket(host, port)) {
+            socket.setTcpNoDelay(true);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            RemoteBoard board = new RemoteBoard(in, out);
+
+            for (int game = 0; game < games; game++) {
+                board.newGame(difficulty.rows, difficulty.columns, difficulty.mines);
+                player.newGame(board, rand);
+                while (board.status == Protocol.PLAYING) {
+                    Move move = player.nextMove();
+                    long start = System.nanoTime();
+                    byte type = switch (move.type()) {
+                        case REVEAL -> Protocol.REVEAL;
+                        case FLAG -> Protocol.FLAG;
+                        case CHORD -> Protocol.CHORD;
+                    };
+                    boolean changed = board.move(type, move.row(), move.col());
+                    latency.record(System.nanoTime() - start);
+                    if (!changed) {
+                        // The player would make the same move again forever
+                        throw new IOException(player.getName() + " made a move that didn't change the board: " + move);
+                    }
+                    moves.incrementAndGet();
+
+                    if (board.revealedCells.size() > 0) {
+                        player.onRevealed(board.revealedCells);
+                    }
+                }
+                gamesPlayed.incrementAndGet();
+                if (board.status == Protocol.WON) {
+                    wins.incrementAndGet();
+                }
+            }
+
+            Protocol.writeHeader(out, 0, Protocol.QUIT);
+            out.flush();
+        } catch (IOException e) {
+            errors.incrementAndGet();
+            System.err.println("Session " + seed + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * A copy of the board of a session, kept up to date from the tiles the server sends.
+     */
+    private static class RemoteBoard implements BoardView {
+        private final DataInputStream in;
+        private final DataOutputStream out;
+        private final CellList revealedCells = new CellList();
+        private int rows;
+        private int cols;
+        private int mines;
+        private byte[] tiles = new byte[0];
+        private byte status;
+
+        private RemoteBoard(DataInputStream in, DataOutputStream out) {
+            this.in = in;
+            this.out = out;
+        }
+
+        private void newGame(int rows, int cols, int mines) throws IOException {
+            Protocol.writeHeader(out, 20, Protocol.NEW_GAME);
+            out.writeInt(rows);
+            out.writeInt(cols);
+            out.writeInt(mines);
+            out.writeLong(0);
+            out.flush();
+
+            readType(Protocol.GAME);
+            this.rows = in.readInt();
+            this.cols = in.readInt();
+            this.mines = in.readInt();
+            in.readLong();
+            if (tiles.length != rows * cols) {
+                tiles = new byte[rows * cols];
+            }
+            Arrays.fill(tiles, Protocol.HIDDEN);
+            status = Protocol.PLAYING;
+        }
+
+        /**
+         * Sends a move and applies the tiles it changed.
+         * @return if the move changed the board.
+         */
+        private boolean move(byte type, int r, int c) throws IOException {
+            Protocol.writeHeader(out, 8, type);
+            out.writeInt(r);
+            out.writeInt(c);
+            out.flush();
+
+            readType(Protocol.DELTA);
+            status = in.readByte();
+            in.readInt(); // Flags remaining
+            int count = in.readInt();
+            revealedCells.clear();
+            for (int i = 0; i < count; i++) {
+                int cell = in.readInt();
+                byte tile = in.readByte();
+                if (tile <= Protocol.MINE && tiles[cell] > Protocol.MINE) {
+                    revealedCells.add(cell);
+                }
+                tiles[cell] = tile;
+            }
+            return count > 0;
+        }
+
+        private void readType(byte expected) throws IOException {
+            int length = Protocol.readLength(in, Integer.MAX_VALUE);
+            byte type = in.readByte();
+            if (type == Protocol.ERROR) {
+                throw new IOException(Protocol.readError(in, length));
+            }
+            if (type != expected) {
+                throw new IOException("Unexpected message type " + type);
+            }
+        }
+
+        @Override
+        public int getRows() {
+            return rows;
+        }
+
+        @Override
+        public int getColumns() {
+            return cols;
+        }
+
+        @Override
+        public int getMines() {
+            return mines;
+        }
+
+        @Override
+        public boolean isRevealed(int r, int c) {
+            return tiles[r * cols + c] <= Protocol.MINE;
+        }
+
+        @Override
+        public boolean isFlagged(int r, int c) {
+            return tiles[r * cols + c] == Protocol.FLAGGED;
+        }
+
+        @Override
+        public int getNumber(int r, int c) {
+            return tiles[r * cols + c];
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        String host = "localhost";
+        int port = 7777;
+        int sessions = 1000;
+        int games = 10;
+        String difficultyName = "EXPERT";
+        String playerName = "solver";
+
+        try {
+            for (int i = 0; i < args.length; i++) {
+                String value = i + 1 < args.length ? args[i + 1] : "";
+                switch (args[i]) {
+                    case "--host" -> host = value;
+                    case "--port" -> port = Integer.parseInt(value);
+                    case "--sessions" -> sessions = Integer.parseInt(value);
+                    case "--games" -> games = Integer.parseInt(value);
+                    case "--difficulty" -> difficultyName = value.toUpperCase(Locale.ROOT);
+                    case "--player" -> playerName = value;
+                    default -> throw new IllegalArgumentException("Unknown option: " + args[i]);
+                }
+                i++;
+            }
+            Difficulties.valueOf(difficultyName);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println("Usage: LoadTestClient [--host H] [--port N] [--sessions N] [--games N] [--difficulty NAME] [--player NAME]");
+            System.exit(1);
+            return;
+        }
+
+        LoadTestClient client = new LoadTestClient(host, port, Difficulties.valueOf(difficultyName), playerName, games);
+        long start = System.nanoTime();
+        client.run(sessions);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        LatencyHistogram latency = client.latency;
+        System.out.printf(Locale.ROOT, "%d sessions, %d games, %d wins, %d errors in %.1f s%n",
+                sessions, client.gamesPlayed.get(), client.wins.get(), client.errors.get(), seconds);
+        System.out.printf(Locale.ROOT, "%.0f moves/s, latency p50 %.3f ms, p90 %.3f ms, p99 %.3f ms, max %.3f ms%n",
+                client.moves.get() / seconds,
+                latency.getPercentileNanos(50) / 1e6, latency.getPercentileNanos(90) / 1e6,
+                latency.getPercentileNanos(99) / 1e6, latency.getMaxNanos() / 1e6);
+    }
+}
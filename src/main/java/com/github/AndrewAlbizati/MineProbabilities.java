@@ -0,0 +1,653 @@
+package com.github.AndrewAlbizati;
+
+import javax.swing.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * Calculates the chance of each hidden tile having a mine, using only what the player can see.
+ *
+ * The hidden tiles next to revealed numbers (the frontier) are split into components: two tiles are in the
+ * same component if a number touches both. Every way of placing mines in a component that agrees with its
+ * numbers is counted, grouped by how many mines it uses. The components are then combined, weighting each
+ * total by the ways the remaining mines can be placed on the other hidden tiles. Those weights are binomial
+ * coefficients far too large for a double on big boards, so they are kept as logarithms, and the counts of
+ * each component are kept as fractions of its total.
+ *
+ * The result of a component only depends on its numbers and hidden tiles, so it is kept and reused until a
+ * move changes the component. After a move, only the components next to the tiles it revealed are counted again.
+ * The kept components are keyed by the tiles and the values of the numbers, and forgotten by reset() when a new game starts.
+ *
+ * A component that needs more than MAX_STEPS steps to count is left out: its tiles get no probability and
+ * are treated like tiles away from the frontier, so the other probabilities are then only close to exact.
+ */
+public class MineProbabilities {
+    private static final int MAX_STEPS = 1 << 24;
+    private static final int MAX_CACHED_COMPONENTS = 4096;
+
+    // Calculations for every game run one at a time on this thread
+    private static final ExecutorService EXECUTOR = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "mine-probabilities");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Components counted by earlier calculations. Only used by one thread at a time
+    private final Map<ComponentKey, Component> cache = new LinkedHashMap<>();
+    private Topology cachedTopology = null; // The shape and size of the board the components were on
+    private volatile boolean resetRequested = false;
+
+    /**
+     * The chance of every hidden tile having a mine.
+     */
+    public static class Result {
+        private final int[] cells; // Sorted frontier tiles
+        private final float[] probabilities;
+        private final float otherProbability;
+        private final boolean exact;
+
+        private Result(int[] cells, float[] probabilities, float otherProbability, boolean exact) {
+            this.cells = cells;
+            this.probabilities = probabilities;
+            this.otherProbability = otherProbability;
+            this.exact = exact;
+        }
+
+        /**
+         * @param cell The index of a hidden tile.
+         * @return The chance between 0 and 1 that the tile has a mine, NaN if it couldn't be calculated.
+         */
+        public float get(int cell) {
+            int i = Arrays.binarySearch(cells, cell);
+            return i >= 0 ? probabilities[i] : otherProbability;
+        }
+
+        /**
+         * @return The chance of a mine on a hidden tile that isn't next to any revealed number.
+         */
+        public float getOtherProbability() {
+            return otherProbability;
+        }
+
+        /**
+         * @return If every component was counted, otherwise the probabilities are close to exact.
+         */
+        public boolean isExact() {
+            return exact;
+        }
+    }
+
+    /**
+     * Calculates the probabilities on a background thread. The revealed tiles are copied first, so the
+     * board can keep changing. Cancel the returned future when the board changes, the calculation stops
+     * soon after and onDone isn't called.
+     * @param board The board, its mines must have been placed.
+     * @param onDone Called on the Event Dispatch Thread with the probabilities.
+     * @return The calculation.
+     */
+    public Future<?> calculateAsync(Board board, Consumer<Result> onDone) {
+        BoardView snapshot = new RevealedSnapshot(board, board.copyRevealed());
+        return EXECUTOR.submit(() -> {
+            Result result = calculate(snapshot);
+            if (!Thread.currentThread().isInterrupted()) {
+                SwingUtilities.invokeLater(() -> onDone.accept(result));
+            }
+        });
+    }
+
+    /**
+     * Forgets the components counted so far, called when a new game starts on the same board.
+     * Can be called on any thread, the components are forgotten by the next calculation.
+     */
+    public void reset() {
+        resetRequested = true;
+    }
+
+    /**
+     * Calculates the probabilities on the calling thread.
+     * @param view What the player can see of the board.
+     * @return The probabilities.
+     * @throws CancellationException If the thread is interrupted.
+     */
+    public Result calculate(BoardView view) {
+        int rows = view.getRows();
+        int cols = view.getColumns();
+        Topology topology = view.getTopology();
+        if (resetRequested || topology != cachedTopology) {
+            resetRequested = false;
+            cache.clear();
+            cachedTopology = topology;
+        }
+
+        // Find the frontier: revealed numbers with hidden neighbors, and the hidden tiles next to them
+        Map<Integer, Integer> unknownIndex = new HashMap<>();
+        List<Integer> unknownCells = new ArrayList<>();
+        List<int[]> constraintUnknowns = new ArrayList<>();
+        List<Integer> constraintCells = new ArrayList<>();
+        int hidden = 0;
+        int[] neighbors = new int[Topology.MAX_NEIGHBORS];
+        for (int r = 0; r < rows; r++) {
+            checkInterrupted();
+            for (int c = 0; c < cols; c++) {
+                if (!view.isRevealed(r, c)) {
+                    hidden++;
+                    continue;
+                }
+
+                int cell = r * cols + c;
+                int count = 0;
+                for (int offset : topology.offsets(cell)) {
+                    if (!view.isRevealed(cell + offset)) {
+                        neighbors[count++] = cell + offset;
+                    }
+                }
+                if (count == 0) {
+                    continue;
+                }
+
+                int[] locals = new int[count];
+                for (int i = 0; i < count; i++) {
+                    Integer local = unknownIndex.get(neighbors[i]);
+                    if (local == null) {
+                        local = unknownCells.size();
+                        unknownIndex.put(neighbors[i], local);
+                        unknownCells.add(neighbors[i]);
+                    }
+                    locals[i] = local;
+                }
+                constraintUnknowns.add(locals);
+                constraintCells.add(cell);
+            }
+        }
+
+        // Join the tiles that share a number into components
+        int[] parent = new int[unknownCells.size()];
+        for (int i = 0; i < parent.length; i++) {
+            parent[i] = i;
+        }
+        for (int[] locals : constraintUnknowns) {
+            for (int i = 1; i < locals.length; i++) {
+                int a = find(parent, locals[0]);
+                int b = find(parent, locals[i]);
+                if (a != b) {
+                    parent[a] = b;
+                }
+            }
+        }
+        Map<Integer, List<Integer>> constraintsByRoot = new LinkedHashMap<>();
+        for (int i = 0; i < constraintUnknowns.size(); i++) {
+            constraintsByRoot.computeIfAbsent(find(parent, constraintUnknowns.get(i)[0]), root -> new ArrayList<>()).add(i);
+        }
+
+        // Count each component, reusing the ones that didn't change
+        Map<ComponentKey, Component> used = new LinkedHashMap<>();
+        List<Component> components = new ArrayList<>();
+        List<int[]> skippedCells = new ArrayList<>();
+        int unconstrained = hidden - unknownCells.size();
+        for (List<Integer> constraints : constraintsByRoot.values()) {
+            ComponentKey key = createKey(constraints, constraintCells, constraintUnknowns, unknownCells, view);
+            Component component = cache.get(key);
+            if (component == null) {
+                component = count(key, view, topology);
+                cache.put(key, component);
+                if (cache.size() > MAX_CACHED_COMPONENTS) {
+                    cache.remove(cache.keySet().iterator().next());
+                }
+            }
+            used.put(key, component);
+
+            if (component.weights == null) {
+                skippedCells.add(key.unknowns);
+                unconstrained += key.unknowns.length;
+            } else {
+                components.add(component);
+            }
+        }
+        cache.keySet().retainAll(used.keySet());
+
+        return combine(components, skippedCells, unconstrained, view.getMines());
+    }
+
+    private static int find(int[] parent, int i) {
+        while (parent[i] != i) {
+            parent[i] = parent[parent[i]];
+            i = parent[i];
+        }
+        return i;
+    }
+
+    private static void checkInterrupted() {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new CancellationException();
+        }
+    }
+
+    /**
+     * Lists the numbers and hidden tiles of a component, sorted so that the same component always has the same key.
+     */
+    private static ComponentKey createKey(List<Integer> constraints, List<Integer> constraintCells, List<int[]> constraintUnknowns,
+                                          List<Integer> unknownCells, BoardView view) {
+        int[] numberCells = new int[constraints.size()];
+        int unknownCount = 0;
+        for (int i = 0; i < numberCells.length; i++) {
+            numberCells[i] = constraintCells.get(constraints.get(i));
+            unknownCount += constraintUnknowns.get(constraints.get(i)).length;
+        }
+        int[] unknowns = new int[unknownCount];
+        int n = 0;
+        for (int constraint : constraints) {
+            for (int local : constraintUnknowns.get(constraint)) {
+                unknowns[n++] = unknownCells.get(local);
+            }
+        }
+        Arrays.sort(numberCells);
+        Arrays.sort(unknowns);
+
+        // Remove the tiles shared by several numbers
+        int distinct = 0;
+        for (int i = 0; i < unknowns.length; i++) {
+            if (i == 0 || unknowns[i] != unknowns[i - 1]) {
+                unknowns[distinct++] = unknowns[i];
+            }
+        }
+        int[] values = new int[numberCells.length];
+        for (int i = 0; i < numberCells.length; i++) {
+            values[i] = view.getNumber(numberCells[i] / view.getColumns(), numberCells[i] % view.getColumns());
+        }
+        return new ComponentKey(numberCells, values, Arrays.copyOf(unknowns, distinct));
+    }
+
+    /**
+     * Counts every way of placing mines on the hidden tiles of a component that agrees with its numbers.
+     * Tiles are tried in the order of the numbers, so a number is complete soon after its first tile is tried.
+     */
+    private static Component count(ComponentKey key, BoardView view, Topology topology) {
+        int[] unknowns = key.unknowns;
+        int n = unknowns.length;
+        int[] numberCells = key.numbers;
+
+        // The numbers that touch each tile, and how many mines each number still needs
+        int[] need = new int[numberCells.length];
+        int[] remaining = new int[numberCells.length];
+        int[] mines = new int[numberCells.length];
+        List<List<Integer>> tileConstraints = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            tileConstraints.add(new ArrayList<>());
+        }
+        int[] order = new int[n];
+        boolean[] ordered = new boolean[n];
+        int orderSize = 0;
+        for (int i = 0; i < numberCells.length; i++) {
+            int cell = numberCells[i];
+            need[i] = view.getNumber(cell / view.getColumns(), cell % view.getColumns());
+            for (int offset : topology.offsets(cell)) {
+                if (view.isRevealed(cell + offset)) {
+                    continue;
+                }
+                int tile = Arrays.binarySearch(unknowns, cell + offset);
+                tileConstraints.get(tile).add(i);
+                remaining[i]++;
+                if (!ordered[tile]) {
+                    ordered[tile] = true;
+                    order[orderSize++] = tile;
+                }
+            }
+        }
+        int[][] constraintsOf = new int[n][];
+        for (int i = 0; i < n; i++) {
+            List<Integer> list = tileConstraints.get(order[i]);
+            constraintsOf[i] = new int[list.size()];
+            for (int j = 0; j < list.size(); j++) {
+                constraintsOf[i][j] = list.get(j);
+            }
+        }
+
+        // Try every assignment, going back as soon as a number can't be satisfied
+        long[] counts = new long[n + 1];
+        long[][] mineCounts = new long[n + 1][]; // [mines in the component][tile in order], created when first needed
+        int[] value = new int[n];
+        Arrays.fill(value, -1);
+        int minesPlaced = 0;
+        long steps = 0;
+        int pos = 0;
+        while (pos >= 0) {
+            if (value[pos] >= 0) {
+                minesPlaced -= value[pos];
+                for (int constraint : constraintsOf[pos]) {
+                    remaining[constraint]++;
+                    mines[constraint] -= value[pos];
+                }
+            }
+            value[pos]++;
+            if (value[pos] > 1) {
+                value[pos] = -1;
+                pos--;
+                continue;
+            }
+
+            if (++steps > MAX_STEPS) {
+                return new Component(null, 0, null, unknowns);
+            }
+            if ((steps & 0xFFF) == 0) {
+                checkInterrupted();
+            }
+
+            boolean possible = true;
+            minesPlaced += value[pos];
+            for (int constraint : constraintsOf[pos]) {
+                remaining[constraint]--;
+                mines[constraint] += value[pos];
+                if (mines[constraint] > need[constraint] || mines[constraint] + remaining[constraint] < need[constraint]) {
+                    possible = false;
+                }
+            }
+            if (!possible || minesPlaced > view.getMines()) {
+                continue;
+            }
+
+            if (pos < n - 1) {
+                pos++;
+                continue;
+            }
+
+            // Every tile has a value and every number is satisfied
+            counts[minesPlaced]++;
+            if (mineCounts[minesPlaced] == null) {
+                mineCounts[minesPlaced] = new long[n];
+            }
+            long[] tileCounts = mineCounts[minesPlaced];
+            for (int i = 0; i < n; i++) {
+                tileCounts[i] += value[i];
+            }
+        }
+
+        // Keep fractions instead of counts, they can't overflow when components are combined
+        int min = 0;
+        while (min <= n && counts[min] == 0) {
+            min++;
+        }
+        int max = n;
+        while (max >= min && counts[max] == 0) {
+            max--;
+        }
+        long total = 0;
+        for (long count : counts) {
+            total += count;
+        }
+        if (total == 0) {
+            return new Component(new double[0], 0, new double[0][], unknowns); // The numbers contradict each other
+        }
+
+        double[] weights = new double[max - min + 1];
+        double[][] mineGivenCount = new double[max - min + 1][];
+        for (int k = min; k <= max; k++) {
+            weights[k - min] = (double) counts[k] / total;
+            if (counts[k] > 0) {
+                mineGivenCount[k - min] = new double[n];
+                for (int i = 0; i < n; i++) {
+                    mineGivenCount[k - min][i] = (double) mineCounts[k][i] / counts[k];
+                }
+            }
+        }
+
+        // Put the tiles back in the order of the key
+        int[] cellOrder = new int[n];
+        for (int i = 0; i < n; i++) {
+            cellOrder[i] = unknowns[order[i]];
+        }
+        return new Component(weights, min, mineGivenCount, cellOrder);
+    }
+
+    /**
+     * Combines the components with the tiles away from the frontier, which share the mines that are left.
+     */
+    private static Result combine(List<Component> components, List<int[]> skippedCells, int unconstrained, int totalMines) {
+        int m = components.size();
+
+        // prefix[i] is the distribution of mines in components 0 to i - 1, suffix[i] in components i to m - 1
+        double[][] prefix = new double[m + 1][];
+        double[][] suffix = new double[m + 1][];
+        int[] prefixMin = new int[m + 1];
+        int[] suffixMin = new int[m + 1];
+        prefix[0] = new double[]{1};
+        suffix[m] = new double[]{1};
+        for (int i = 0; i < m; i++) {
+            checkInterrupted();
+            Component component = components.get(i);
+            prefix[i + 1] = convolve(prefix[i], component.weights);
+            prefixMin[i + 1] = prefixMin[i] + component.minMines;
+        }
+        for (int i = m - 1; i >= 0; i--) {
+            checkInterrupted();
+            Component component = components.get(i);
+            suffix[i] = convolve(suffix[i + 1], component.weights);
+            suffixMin[i] = suffixMin[i + 1] + component.minMines;
+        }
+
+        // The ways of placing the remaining mines on the other tiles, relative to the largest
+        double[] all = prefix[m];
+        int allMin = prefixMin[m];
+        double[] placements = placements(unconstrained, totalMines, allMin, allMin + all.length - 1);
+
+        double total = 0;
+        double otherMines = 0;
+        for (int k = 0; k < all.length; k++) {
+            double weight = all[k] * placements[k];
+            total += weight;
+            otherMines += weight * (totalMines - allMin - k);
+        }
+
+        int frontierSize = 0;
+        for (Component component : components) {
+            frontierSize += component.cells.length;
+        }
+        for (int[] cells : skippedCells) {
+            frontierSize += cells.length;
+        }
+        long[] packed = new long[frontierSize];
+        int n = 0;
+
+        boolean possible = total > 0;
+        for (int i = 0; i < m; i++) {
+            checkInterrupted();
+            Component component = components.get(i);
+            double[] others = possible ? convolve(prefix[i], suffix[i + 1]) : new double[0];
+            int othersMin = prefixMin[i] + suffixMin[i + 1];
+
+            // The weight of the component having each amount of mines, given everything else
+            double[] given = new double[component.weights.length];
+            for (int k = 0; k < given.length; k++) {
+                double sum = 0;
+                for (int j = 0; j < others.length; j++) {
+                    int index = component.minMines + k + othersMin + j - allMin;
+                    sum += others[j] * placements[index];
+                }
+                given[k] = component.weights[k] * sum;
+            }
+
+            for (int tile = 0; tile < component.cells.length; tile++) {
+                double mine = 0;
+                for (int k = 0; k < given.length; k++) {
+                    if (component.mineGivenCount[k] != null) {
+                        mine += given[k] * component.mineGivenCount[k][tile];
+                    }
+                }
+                float probability = possible ? (float) Math.min(mine / total, 1) : Float.NaN;
+                packed[n++] = pack(component.cells[tile], probability);
+            }
+        }
+        for (int[] cells : skippedCells) {
+            for (int cell : cells) {
+                packed[n++] = pack(cell, Float.NaN);
+            }
+        }
+
+        // Sort by tile so that a tile can be found with a binary search
+        Arrays.sort(packed);
+        int[] cells = new int[packed.length];
+        float[] probabilities = new float[packed.length];
+        for (int i = 0; i < packed.length; i++) {
+            cells[i] = (int) (packed[i] >>> 32);
+            probabilities[i] = Float.intBitsToFloat((int) packed[i]);
+        }
+
+        float otherProbability = possible && unconstrained > 0 ? (float) (otherMines / total / unconstrained) : Float.NaN;
+        return new Result(cells, probabilities, otherProbability, skippedCells.isEmpty());
+    }
+
+    private static long pack(int cell, float probability) {
+        return (long) cell << 32 | (Float.floatToRawIntBits(probability) & 0xFFFFFFFFL);
+    }
+
+    private static double[] convolve(double[] a, double[] b) {
+        if (a.length == 0 || b.length == 0) {
+            return new double[0];
+        }
+        double[] result = new double[a.length + b.length - 1];
+        for (int i = 0; i < a.length; i++) {
+            for (int j = 0; j < b.length; j++) {
+                result[i + j] += a[i] * b[j];
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return For each amount of mines k in the frontier from minK to maxK, the ways of placing the other
+     * totalMines - k mines on the other tiles, divided by the largest of them. Computed as logarithms.
+     */
+    private static double[] placements(int otherTiles, int totalMines, int minK, int maxK) {
+        double[] log = new double[maxK - minK + 1];
+        // C(n, j + 1) / C(n, j) = (n - j) / (j + 1), going from j = totalMines - maxK up to totalMines - minK
+        double current = 0;
+        double max = Double.NEGATIVE_INFINITY;
+        for (int k = maxK; k >= minK; k--) {
+            int j = totalMines - k;
+            if (j < 0 || j > otherTiles) {
+                log[k - minK] = Double.NEGATIVE_INFINITY;
+            } else {
+                log[k - minK] = current;
+                max = Math.max(max, current);
+                current += Math.log((double) (otherTiles - j) / (j + 1));
+            }
+        }
+
+        double[] result = new double[log.length];
+        if (max == Double.NEGATIVE_INFINITY) {
+            return result;
+        }
+        for (int i = 0; i < log.length; i++) {
+            result[i] = Math.exp(log[i] - max);
+        }
+        return result;
+    }
+
+    /**
+     * The numbers and hidden tiles of a component, sorted, and the value of each number.
+     */
+    private static class ComponentKey {
+        private final int[] numbers;
+        private final int[] values;
+        private final int[] unknowns;
+        private final int hash;
+
+        private ComponentKey(int[] numbers, int[] values, int[] unknowns) {
+            this.numbers = numbers;
+            this.values = values;
+            this.unknowns = unknowns;
+            this.hash = 31 * (31 * Arrays.hashCode(numbers) + Arrays.hashCode(values)) + Arrays.hashCode(unknowns);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof ComponentKey other && hash == other.hash && Arrays.equals(numbers, other.numbers)
+                    && Arrays.equals(values, other.values) && Arrays.equals(unknowns, other.unknowns);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    /**
+     * The counted placements of a component.
+     */
+    private static class Component {
+        private final double[] weights; // [mines - minMines], fraction of placements with that many mines. Null if not counted
+        private final int minMines;
+        private final double[][] mineGivenCount; // [mines - minMines][tile], chance of a mine on the tile given that many mines
+        private final int[] cells;
+
+        private Component(double[] weights, int minMines, double[][] mineGivenCount, int[] cells) {
+            this.weights = weights;
+            this.minMines = minMines;
+            this.mineGivenCount = mineGivenCount;
+            this.cells = cells;
+        }
+    }
+
+    /**
+     * The revealed tiles of a board at one moment. The numbers are read from the board, they don't change during a game.
+     */
+    private static class RevealedSnapshot implements BoardView {
+        private final Board board;
+        private final long[] revealed;
+        private final int cols;
+
+        private RevealedSnapshot(Board board, long[] revealed) {
+            this.board = board;
+            this.revealed = revealed;
+            this.cols = board.getColumns();
+        }
+
+        @Override
+        public int getRows() {
+            return board.getRows();
+        }
+
+        @Override
+        public int getColumns() {
+            return cols;
+        }
+
+        @Override
+        public int getMines() {
+            return board.getMines();
+        }
+
+        @Override
+        public boolean isRevealed(int r, int c) {
+            return isRevealed(r * cols + c);
+        }
+
+        @Override
+        public boolean isRevealed(int i) {
+            return (revealed[i >>> 6] >>> i & 1) != 0;
+        }
+
+        @Override
+        public boolean isFlagged(int r, int c) {
+            return false;
+        }
+
+        @Override
+        public int getNumber(int r, int c) {
+            return board.getNumber(r, c);
+        }
+
+        @Override
+        public Topology getTopology() {
+            return board.getTopology();
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.github.AndrewAlbizati;
+
+/**
+ * A move made by a player.
+ * @param type What the move does.
+ * @param row The row of the tile.
+ * @param col The column of the tile.
+ * @param guess If the player wasn't certain that the move was safe.
+ */
+public record Move(Type type, int row, int col, boolean guess) {
+    public enum Type {
+        REVEAL,
+        FLAG,
+        CHORD // Reveals the unflagged neighbors of a number with as many flags around it
+    }
+
+    public static Move reveal(int row, int col, boolean guess) {
+        return new Move(Type.REVEAL, row, col, guess);
+    }
+
+    public static Move flag(int row, int col) {
+        return new Move(Type.FLAG, row, col, false);
+    }
+
+    public static Move chord(int row, int col) {
+        return new Move(Type.CHORD, row, col, false);
+    }
+}
@@ -0,0 +1,204 @@
+package com.github.AndrewAlbizati;
+
+/**
+ * The moves of a game that can be undone and redone, used by GameEngine. Only the tiles each move changed are kept,
+ * never copies of the board, so undoing or redoing a move takes time proportional to the tiles it changed.
+ *
+ * The moves are kept back to back in one byte array, each as:
+ *   int length, varint info, varint amount of tiles,
+ *   varint of every tile as the difference from the tile before it (zigzag encoded), int length
+ * The length is at both ends so the oldest move can be dropped and the newest one found from the end.
+ * A reveal lists its tiles in the order the flood fill visited them, which are mostly next to each other,
+ * so most tiles take one or two bytes. Once the moves take more than the limit, the oldest are forgotten.
+ */
+class MoveHistory {
+    private final int maxBytes;
+    private byte[] data = new byte[256];
+    private int start = 0; // The oldest move
+    private int cursor = 0; // The end of the moves that can be undone, moves after it can be redone
+    private int end = 0;
+
+    /**
+     * @param maxBytes The most memory the moves may take.
+     */
+    MoveHistory(int maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Adds a move after the last one that wasn't undone. The moves that were undone can't be redone anymore.
+     * A move that takes more than the limit on its own can't be kept, and the moves before it are forgotten too.
+     * @param info What the move did, returned when it is undone or redone.
+     * @param cells The tiles the move changed.
+     */
+    void record(int info, CellList cells) {
+        end = cursor;
+        long length = 8 + varintSize(info) + varintSize(cells.size());
+        int previous = 0;
+        for (int i = 0; i < cells.size(); i++) {
+            int cell = cells.get(i);
+            length += varintSize(zigzag(cell - previous));
+            previous = cell;
+        }
+        if (length > maxBytes) {
+            clear();
+            return;
+        }
+        if (end - start + length > maxBytes) {
+            // Forget down to three quarters of the limit, so the moves are moved to the front of the array at most
+            // once for every quarter of the limit recorded
+            while (start < end && end - start + length > maxBytes - maxBytes / 4) {
+                start += readInt(start);
+            }
+        }
+        makeRoom((int) length);
+
+        writeInt(end, (int) length);
+        int position = end + 4;
+        position = writeVarint(position, info);
+        position = writeVarint(position, cells.size());
+        previous = 0;
+        for (int i = 0; i < cells.size(); i++) {
+            int cell = cells.get(i);
+            position = writeVarint(position, zigzag(cell - previous));
+            previous = cell;
+        }
+        writeInt(position, (int) length);
+        end += (int) length;
+        cursor = end;
+    }
+
+    private static int zigzag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    private static int varintSize(int value) {
+        return (38 - Integer.numberOfLeadingZeros(value | 1)) / 7; // 1 byte for every 7 bits
+    }
+
+    /**
+     * Moves the kept moves to the front of the array, or grows it, so that a move of some length fits after them.
+     */
+    private void makeRoom(int length) {
+        if (end + length <= data.length) {
+            return;
+        }
+        if (end - start + length <= data.length) {
+            System.arraycopy(data, start, data, 0, end - start);
+        } else {
+            byte[] grown = new byte[(int) Math.min(Math.max(2L * data.length, end - start + length), maxBytes)];
+            System.arraycopy(data, start, grown, 0, end - start);
+            data = grown;
+        }
+        cursor -= start;
+        end -= start;
+        start = 0;
+    }
+
+    boolean canUndo() {
+        return cursor > start;
+    }
+
+    boolean canRedo() {
+        return cursor < end;
+    }
+
+    /**
+     * Steps back over the last move that wasn't undone.
+     * @param cells Filled with the tiles the move changed.
+     * @return What the move did, as given to record().
+     */
+    int undo(CellList cells) {
+        if (!canUndo()) {
+            throw new IllegalStateException("There is no move to undo");
+        }
+        cursor -= readInt(cursor - 4);
+        return read(cursor, cells);
+    }
+
+    /**
+     * Steps forward over the first move that was undone.
+     * @param cells Filled with the tiles the move changed.
+     * @return What the move did, as given to record().
+     */
+    int redo(CellList cells) {
+        if (!canRedo()) {
+            throw new IllegalStateException("There is no move to redo");
+        }
+        int info = read(cursor, cells);
+        cursor += readInt(cursor);
+        return info;
+    }
+
+    /**
+     * Forgets every move.
+     */
+    void clear() {
+        start = 0;
+        cursor = 0;
+        end = 0;
+    }
+
+    /**
+     * @return The bytes used by the kept moves.
+     */
+    int size() {
+        return end - start;
+    }
+
+    private int read(int position, CellList cells) {
+        position += 4;
+        long value = readVarint(position);
+        int info = (int) value;
+        position = (int) (value >>> 32);
+        value = readVarint(position);
+        int count = (int) value;
+        position = (int) (value >>> 32);
+
+        cells.clear();
+        int cell = 0;
+        for (int i = 0; i < count; i++) {
+            value = readVarint(position);
+            int zigzag = (int) value;
+            position = (int) (value >>> 32);
+            cell += (zigzag >>> 1) ^ -(zigzag & 1);
+            cells.add(cell);
+        }
+        return info;
+    }
+
+    private int writeVarint(int position, int value) {
+        while ((value & ~0x7F) != 0) {
+            data[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        data[position++] = (byte) value;
+        return position;
+    }
+
+    /**
+     * @return The value in the low 32 bits and the position after it in the high 32 bits.
+     */
+    private long readVarint(int position) {
+        int value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = data[position++];
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while (b < 0);
+        return (long) position << 32 | (value & 0xFFFFFFFFL);
+    }
+
+    private void writeInt(int position, int value) {
+        data[position] = (byte) (value >>> 24);
+        data[position + 1] = (byte) (value >>> 16);
+        data[position + 2] = (byte) (value >>> 8);
+        data[position + 3] = (byte) value;
+    }
+
+    private int readInt(int position) {
+        return (data[position] & 0xFF) << 24 | (data[position + 1] & 0xFF) << 16 | (data[position + 2] & 0xFF) << 8 | (data[position + 3] & 0xFF);
+    }
+}
@@ -0,0 +1,149 @@
+package com.github.AndrewAlbizati;
+
+/**
+ * Calculates the amount of adjacent mines for every tile of a board.
+ * Mines are given as row bitmasks: each row is stored in wordsPerRow(columns) longs,
+ * with column c of row r at bit (c % 64) of word r * wordsPerRow + c / 64.
+ * Tiles with a mine always get 0.
+ */
+public final class NeighborCounter {
+    private NeighborCounter() {
+    }
+
+    /**
+     * @return The amount of longs needed to store one row of a board.
+     */
+    public static int wordsPerRow(int cols) {
+        return (cols + 63) >>> 6;
+    }
+
+    /**
+     * Counts the adjacent mines of 64 tiles at a time.
+     * The neighbors of each tile are the row masks above, below and on the same row shifted by one column.
+     * Each row's neighbors are added into a 2-bit sum per tile, then the three sums are added together
+     * with bitwise adders into four bit planes (bit 0 to bit 3 of every count).
+     * @param mines The mines of the board as row bitmasks.
+     * @param rows The amount of rows on the board.
+     * @param cols The amount of columns on the board.
+     * @param numbers Where the counts are written, indexed by row * cols + column.
+     */
+    public static void count(long[] mines, int rows, int cols, byte[] numbers) {
+        int words = wordsPerRow(cols);
+        for (int r = 0; r < rows; r++) {
+            int row = r * words;
+            for (int w = 0; w < words; w++) {
+                // Left and right neighbors on the same row (0 - 2)
+                long left = shiftLeft(mines, row, w, words);
+                long right = shiftRight(mines, row, w, words);
+                long middle0 = left ^ right;
+                long middle1 = left & right;
+
+                // Three neighbors on the row above (0 - 3)
+                long above0 = 0;
+                long above1 = 0;
+                if (r > 0) {
+                    int above = row - words;
+                    long center = mines[above + w];
+                    left = shiftLeft(mines, above, w, words);
+                    right = shiftRight(mines, above, w, words);
+                    above0 = left ^ center ^ right;
+                    above1 = (left & center) | (right & (left ^ center));
+                }
+
+                // Three neighbors on the row below (0 - 3)
+                long below0 = 0;
+                long below1 = 0;
+                if (r < rows - 1) {
+                    int below = row + words;
+                    long center = mines[below + w];
+                    left = shiftLeft(mines, below, w, words);
+                    right = shiftRight(mines, below, w, words);
+                    below0 = left ^ center ^ right;
+                    below1 = (left & center) | (right & (left ^ center));
+                }
+
+                // above + below (0 - 6)
+                long carry = above0 & below0;
+                long sum0 = above0 ^ below0;
+                long sum1 = above1 ^ below1 ^ carry;
+                long sum2 = (above1 & below1) | (carry & (above1 ^ below1));
+
+                // + middle (0 - 8)
+                carry = sum0 & middle0;
+                long b0 = sum0 ^ middle0;
+                long b1 = sum1 ^ middle1 ^ carry;
+                carry = (sum1 & middle1) | (carry & (sum1 ^ middle1));
+                long b2 = sum2 ^ carry;
+                long b3 = sum2 & carry;
+
+                // Tiles with a mine don't have a number
+                long noMine = ~mines[row + w];
+                b0 &= noMine;
+                b1 &= noMine;
+                b2 &= noMine;
+                b3 &= noMine;
+
+                int first = r * cols + (w << 6);
+                int length = Math.min(64, cols - (w << 6));
+                for (int i = 0; i < length; i++) {
+                    numbers[first + i] = (byte) (((b0 >>> i) & 1) | (((b1 >>> i) & 1) << 1) | (((b2 >>> i) & 1) << 2) | (((b3 >>> i) & 1) << 3));
+                }
+            }
+        }
+    }
+
+    /**
+     * Counts the adjacent mines one tile at a time. Gives the same results as count().
+     * @param mines The mines of the board as row bitmasks.
+     * @param rows The amount of rows on the board.
+     * @param cols The amount of columns on the board.
+     * @param numbers Where the counts are written, indexed by row * cols + column.
+     */
+    public static void countScalar(long[] mines, int rows, int cols, byte[] numbers) {
+        int words = wordsPerRow(cols);
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < cols; c++) {
+                if (hasMine(mines, words, r, c)) {
+                    numbers[r * cols + c] = 0;
+                    continue;
+                }
+
+                int adjacentMines = 0;
+                for (int nr = Math.max(r - 1, 0); nr <= Math.min(r + 1, rows - 1); nr++) {
+                    for (int nc = Math.max(c - 1, 0); nc <= Math.min(c + 1, cols - 1); nc++) {
+                        if (hasMine(mines, words, nr, nc)) {
+                            adjacentMines++;
+                        }
+                    }
+                }
+                numbers[r * cols + c] = (byte) adjacentMines;
+            }
+        }
+    }
+
+    private static boolean hasMine(long[] mines, int words, int r, int c) {
+        return (mines[r * words + (c >>> 6)] & (1L << c)) != 0;
+    }
+
+    /**
+     * @return The mask where each bit is the mine of the tile one column to the left.
+     */
+    private static long shiftLeft(long[] mines, int row, int w, int words) {
+        long shifted = mines[row + w] << 1;
+        if (w > 0) {
+            shifted |= mines[row + w - 1] >>> 63;
+        }
+        return shifted;
+    }
+
+    /**
+     * @return The mask where each bit is the mine of the tile one column to the right.
+     */
+    private static long shiftRight(long[] mines, int row, int w, int words) {
+        long shifted = mines[row + w] >>> 1;
+        if (w < words - 1) {
+            shifted |= mines[row + w + 1] << 63;
+        }
+        return shifted;
+    }
+}
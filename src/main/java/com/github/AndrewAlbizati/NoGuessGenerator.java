@@ -0,0 +1,174 @@
+package com.github.AndrewAlbizati;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generates boards that can be finished without guessing.
+ * A board is accepted only if the Solver can reveal every safe tile starting from the start tile
+ * (the center of the board). Most random boards are rejected, so every core checks candidates at the same time.
+ * The candidates are numbered and each is seeded by its number, and the accepted candidate with the lowest number
+ * is used, so the board only depends on the seed and not on the threads or which one finished first.
+ */
+public class NoGuessGenerator {
+    private final ExecutorService executor;
+    private final int threads;
+
+    /**
+     * @param threads The amount of boards generated and checked at the same time.
+     * @param priority The priority of the threads, lower for boards generated in the background.
+     */
+    public NoGuessGenerator(int threads, int priority) {
+        this.threads = threads;
+        this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "no-guess-generator");
+            thread.setDaemon(true);
+            thread.setPriority(priority);
+            return thread;
+        });
+    }
+
+    /**
+     * @param threads The amount of boards generated and checked at the same time.
+     */
+    public NoGuessGenerator(int threads) {
+        this(threads, Thread.NORM_PRIORITY);
+    }
+
+    public NoGuessGenerator() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public static int getStartRow(Board board) {
+        return board.getRows() / 2;
+    }
+
+    public static int getStartColumn(Board board) {
+        return board.getColumns() / 2;
+    }
+
+    /**
+     * Generates a board that can be finished without guessing, using every thread of this generator.
+     * The tiles of the returned board are all hidden. The game should start by revealing the start tile.
+     * @param rows The amount of rows on the board.
+     * @param cols The amount of columns on the board.
+     * @param mines The amount of mines on the board.
+     * @param seed Seeds the candidates, the same seed always gives the same board.
+     * @return The board.
+     * @throws InterruptedException If the thread is interrupted while waiting.
+     */
+    public Board generate(int rows, int cols, int mines, long seed) throws InterruptedException {
+        Search search = new Search(seed);
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            tasks.add(() -> {
+                generateCandidates(rows, cols, mines, search);
+                return null;
+            });
+        }
+
+        for (Future<Void> future : executor.invokeAll(tasks)) {
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Could not generate a board", e.getCause());
+            }
+        }
+        return search.board;
+    }
+
+    /**
+     * The candidates of one call to generate, shared by its threads.
+     */
+    private static class Search {
+        private final long seed;
+        private final AtomicLong next = new AtomicLong();
+        private long best = Long.MAX_VALUE;
+        private Board board = null;
+
+        private Search(long seed) {
+            this.seed = seed;
+        }
+
+        private synchronized long getBest() {
+            return best;
+        }
+
+        /**
+         * Keeps an accepted candidate if no candidate with a lower number was accepted yet.
+         */
+        private synchronized void accept(long candidate, Board board) {
+            if (candidate < best) {
+                best = candidate;
+                this.board = board;
+            }
+        }
+    }
+
+    /**
+     * Checks candidates on the current thread until every candidate numbered below the best accepted one is checked.
+     */
+    private static void generateCandidates(int rows, int cols, int mines, Search search) throws InterruptedException {
+        Board board = new Board(rows, cols, mines);
+        int startRow = getStartRow(board);
+        int startCol = getStartColumn(board);
+        while (true) {
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+
+            long candidate = search.next.getAndIncrement();
+            if (candidate >= search.getBest()) {
+                return;
+            }
+            board.clear();
+            board.placeMines(new Random(candidateSeed(search.seed, candidate)), startRow, startCol);
+            if (isSolvable(board, startRow, startCol)) {
+                board.hideAll();
+                search.accept(candidate, board);
+                board = new Board(rows, cols, mines);
+            }
+        }
+    }
+
+    /**
+     * Spreads the seeds of consecutive candidates apart (SplitMix64), since Random gives similar first values
+     * for similar seeds.
+     */
+    private static long candidateSeed(long seed, long candidate) {
+        long z = seed + candidate * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Plays a board with the solver, revealing only tiles that are certainly safe.
+     * The board is left in whatever state the solver reached.
+     * @return if every safe tile was revealed.
+     */
+    public static boolean isSolvable(Board board, int startRow, int startCol) {
+        Solver solver = new Solver(board);
+        solver.update(board.reveal(startRow, startCol));
+
+        while (!board.hasWin()) {
+            solver.solve();
+            CellList safeCells = solver.getSafeCells();
+            if (safeCells.isEmpty()) {
+                return false;
+            }
+            for (int i = 0; i < safeCells.size(); i++) {
+                int cell = safeCells.get(i);
+                solver.update(board.reveal(board.getRow(cell), board.getColumn(cell)));
+            }
+        }
+        return true;
+    }
+}
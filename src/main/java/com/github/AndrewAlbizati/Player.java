@@ -0,0 +1,33 @@
+package com.github.AndrewAlbizati;
+
+import java.util.Random;
+
+/**
+ * Plays Minesweeper using only what can be seen of the board.
+ * A player is used by one thread at a time and can be reused for many games.
+ */
+public interface Player {
+    /**
+     * @return The name used for this player in results.
+     */
+    String getName();
+
+    /**
+     * Called before the first move of every game.
+     * @param view What the player can see of the board, stays the same object for the whole game.
+     * @param rand The source of randomness the player must use, so that games can be repeated.
+     */
+    void newGame(BoardView view, Random rand);
+
+    /**
+     * @return The next move. It must change the board: a hidden tile to reveal, or a hidden tile to flag or unflag.
+     */
+    Move nextMove();
+
+    /**
+     * Called after every move that revealed tiles.
+     * @param revealedCells The indices (row * columns + column) of the revealed tiles. Only valid during this call.
+     */
+    default void onRevealed(CellList revealedCells) {
+    }
+}
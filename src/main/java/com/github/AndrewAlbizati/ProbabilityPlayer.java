@@ -0,0 +1,85 @@
+package com.github.AndrewAlbizati;
+
+import java.util.Random;
+
+/**
+ * Starts in the center, then reveals the tiles the Solver finds to be certainly safe.
+ * When there are none, it calculates the chance of every hidden tile having a mine and reveals
+ * the tile with the lowest chance, picking randomly between tiles with the same chance.
+ */
+public class ProbabilityPlayer implements Player {
+    private BoardView view;
+    private Random rand;
+    private Solver solver = null;
+    private final MineProbabilities probabilities = new MineProbabilities();
+    private boolean firstMove;
+
+    @Override
+    public String getName() {
+        return "probability";
+    }
+
+    @Override
+    public void newGame(BoardView view, Random rand) {
+        // Reuse the solver between games on the same board
+        if (solver == null || this.view != view) {
+            solver = new Solver(view);
+        } else {
+            solver.reset();
+        }
+        probabilities.reset();
+        this.view = view;
+        this.rand = rand;
+        this.firstMove = true;
+    }
+
+    @Override
+    public Move nextMove() {
+        int cols = view.getColumns();
+        if (firstMove) {
+            firstMove = false;
+            return Move.reveal(view.getRows() / 2, cols / 2, false);
+        }
+
+        solver.solve();
+        CellList safeCells = solver.getSafeCells();
+        if (!safeCells.isEmpty()) {
+            int cell = safeCells.get(0);
+            return Move.reveal(cell / cols, cell % cols, false);
+        }
+
+        MineProbabilities.Result result = probabilities.calculate(view);
+        int best = -1;
+        float bestProbability = Float.MAX_VALUE;
+        int ties = 0;
+        for (int r = 0; r < view.getRows(); r++) {
+            for (int c = 0; c < cols; c++) {
+                if (view.isRevealed(r, c) || solver.isMine(r, c)) {
+                    continue;
+                }
+                float probability = result.get(r * cols + c);
+                if (Float.isNaN(probability)) {
+                    probability = result.getOtherProbability(); // The tile's component was too large to count
+                }
+                if (Float.isNaN(probability)) {
+                    probability = 1; // Only picked if no tile has a known chance
+                }
+
+                // Every tile with the lowest chance is equally likely to be picked
+                if (probability < bestProbability) {
+                    best = r * cols + c;
+                    bestProbability = probability;
+                    ties = 1;
+                } else if (probability == bestProbability && rand.nextInt(++ties) == 0) {
+                    best = r * cols + c;
+                }
+            }
+        }
+        return Move.reveal(best / cols, best % cols, true);
+    }
+
+    @Override
+    public void onRevealed(CellList revealedCells) {
+        solver.update(revealedCells);
+    }
+}
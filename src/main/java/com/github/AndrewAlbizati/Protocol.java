@@ -0,0 +1,97 @@
+package com.github.AndrewAlbizati;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The messages sent between GameServer and its clients. Every message is a frame:
+ *   int length of the rest of the frame, byte type, payload
+ * All numbers are big-endian.
+ *
+ * Client to server:
+ *   NEW_GAME int rows, int columns, int mines, long seed (0 for a random seed)
+ *   REVEAL   int row, int column
+ *   FLAG     int row, int column
+ *   CHORD    int row, int column, reveals the hidden neighbors of a number with as many flags around it
+ *   STATE    (nothing), asks for every revealed or flagged tile
+ *   QUIT     (nothing)
+ *
+ * Server to client:
+ *   GAME     int rows, int columns, int mines, long seed
+ *   DELTA    byte status, int flags remaining, int count, then count times: int tile index, byte tile
+ *            Sent after every move with the tiles that changed (none if the move changed nothing),
+ *            and after STATE with every revealed or flagged tile.
+ *   ERROR    UTF-8 message, the session stays open unless the error was caused by the session itself
+ *            A frame with an invalid length or type gets an ERROR, then the session is closed.
+ */
+final class Protocol {
+    static final byte NEW_GAME = 1;
+    static final byte REVEAL = 2;
+    static final byte FLAG = 3;
+    static final byte STATE = 4;
+    static final byte QUIT = 5;
+    static final byte CHORD = 6;
+
+    static final byte GAME = 65;
+    static final byte DELTA = 66;
+    static final byte ERROR = 67;
+
+    // Status in DELTA
+    static final byte PLAYING = 0;
+    static final byte WON = 1;
+    static final byte LOST = 2;
+
+    // Tiles in DELTA: 0 - 8 are revealed numbers
+    static final byte MINE = 9;
+    static final byte FLAGGED = 10;
+    static final byte HIDDEN = 11;
+
+    static final int MAX_REQUEST_LENGTH = 64;
+
+    private Protocol() {
+    }
+
+    /**
+     * A frame that breaks the protocol, after which the rest of the connection can't be read.
+     */
+    static class ProtocolException extends IOException {
+        ProtocolException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * Reads the header of the next frame.
+     * @param maxLength The longest frame accepted.
+     * @return The length of the payload.
+     * @throws EOFException If the connection was closed between frames.
+     */
+    static int readLength(DataInputStream in, int maxLength) throws IOException {
+        int length = in.readInt();
+        if (length < 1 || length > maxLength) {
+            throw new ProtocolException("Invalid frame length " + length);
+        }
+        return length - 1;
+    }
+
+    static void writeHeader(DataOutputStream out, int payloadLength, byte type) throws IOException {
+        out.writeInt(payloadLength + 1);
+        out.writeByte(type);
+    }
+
+    static void writeError(DataOutputStream out, String message) throws IOException {
+        byte[] bytes = message.getBytes(StandardCharsets.UTF_8);
+        writeHeader(out, bytes.length, ERROR);
+        out.write(bytes);
+        out.flush();
+    }
+
+    static String readError(DataInputStream in, int payloadLength) throws IOException {
+        byte[] bytes = new byte[payloadLength];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
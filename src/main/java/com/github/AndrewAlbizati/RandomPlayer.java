@@ -0,0 +1,40 @@
+package com.github.AndrewAlbizati;
+
+import java.util.Random;
+
+/**
+ * Starts in the center, then reveals random hidden tiles. Every move after the first one is a guess.
+ */
+public class RandomPlayer implements Player {
+    private BoardView view;
+    private Random rand;
+    private boolean firstMove;
+
+    @Override
+    public String getName() {
+        return "random";
+    }
+
+    @Override
+    public void newGame(BoardView view, Random rand) {
+        this.view = view;
+        this.rand = rand;
+        this.firstMove = true;
+    }
+
+    @Override
+    public Move nextMove() {
+        if (firstMove) {
+            firstMove = false;
+            return Move.reveal(view.getRows() / 2, view.getColumns() / 2, false);
+        }
+
+        int r;
+        int c;
+        do {
+            r = rand.nextInt(view.getRows());
+            c = rand.nextInt(view.getColumns());
+        } while (view.isRevealed(r, c) || view.isFlagged(r, c));
+        return Move.reveal(r, c, true);
+    }
+}
@@ -0,0 +1,180 @@
+package com.github.AndrewAlbizati;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * The recording of a game: the board and every click that changed it, with the time it was made.
+ * Boards with a seed are stored as the seed, boards that were made elsewhere (without guessing) store their mines.
+ *
+ * Binary format, big-endian. "varint" is an unsigned LEB128 number (7 bits per byte, lowest first):
+ *   int magic "MSWR", byte version
+ *   varint rows, varint columns, varint mines, long seed
+ *   byte 1 if the mines follow, 0 if they are placed from the seed on the first click
+ *   (mines) (rows * columns + 7) / 8 bytes, tile i is bit (i % 8) of byte i / 8
+ *   varint amount of moves, then for every move:
+ *     varint (zigzag(tile index - previous tile index) << 1) | (1 for a flag, 0 for a reveal)
+ *     varint milliseconds since the previous move
+ */
+public class Replay {
+    public static final String DIRECTORY = "replays";
+    public static final String EXTENSION = ".mswr";
+
+    static final int MAGIC = 0x4D535752; // "MSWR"
+    static final byte VERSION = 1;
+
+    private final int rows;
+    private final int cols;
+    private final int mines;
+    private final long seed;
+    private final long[] mineLayout;
+
+    private final boolean[] flags;
+    private final int[] cells;
+    private final long[] times;
+
+    private Replay(int rows, int cols, int mines, long seed, long[] mineLayout, boolean[] flags, int[] cells, long[] times) {
+        this.rows = rows;
+        this.cols = cols;
+        this.mines = mines;
+        this.seed = seed;
+        this.mineLayout = mineLayout;
+        this.flags = flags;
+        this.cells = cells;
+        this.times = times;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getColumns() {
+        return cols;
+    }
+
+    public int getMines() {
+        return mines;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * @return The mines in the format of Board.copyMines(), or null if they are placed from the seed.
+     */
+    public long[] getMineLayout() {
+        return mineLayout == null ? null : mineLayout.clone();
+    }
+
+    public int getMoves() {
+        return cells.length;
+    }
+
+    public Move.Type getType(int move) {
+        return flags[move] ? Move.Type.FLAG : Move.Type.REVEAL;
+    }
+
+    /**
+     * @return The index (row * columns + column) of the tile that was clicked.
+     */
+    public int getCell(int move) {
+        return cells[move];
+    }
+
+    /**
+     * @return The milliseconds from the start of the game until the move.
+     */
+    public long getTime(int move) {
+        return times[move];
+    }
+
+    /**
+     * @return The length of the game in milliseconds, until the last move.
+     */
+    public long getDuration() {
+        return cells.length == 0 ? 0 : times[cells.length - 1];
+    }
+
+    public static Replay read(Path path) throws IOException {
+        return read(Files.readAllBytes(path));
+    }
+
+    /**
+     * @param data A replay written by ReplayRecorder.
+     * @return The replay.
+     * @throws IOException If the data isn't a valid replay.
+     */
+    public static Replay read(byte[] data) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        try {
+            if (buffer.getInt() != MAGIC || buffer.get() != VERSION) {
+                throw new IOException("Not a replay");
+            }
+
+            int rows = (int) readVarint(buffer);
+            int cols = (int) readVarint(buffer);
+            int mines = (int) readVarint(buffer);
+            long seed = buffer.getLong();
+            if (rows <= 0 || cols <= 0 || (long) rows * cols > Integer.MAX_VALUE - 63 || mines < 0 || mines >= rows * cols) {
+                throw new IOException("Invalid board size");
+            }
+            int tiles = rows * cols;
+
+            long[] mineLayout = null;
+            if (buffer.get() == 1) {
+                mineLayout = new long[(tiles + 63) >>> 6];
+                for (int i = 0; i < (tiles + 7) >>> 3; i++) {
+                    mineLayout[i >>> 3] |= (buffer.get() & 0xFFL) << ((i & 7) << 3);
+                }
+            }
+
+            int moves = (int) readVarint(buffer);
+            if (moves < 0 || moves > buffer.remaining() / 2) {
+                throw new IOException("Invalid amount of moves");
+            }
+            boolean[] flags = new boolean[moves];
+            int[] cells = new int[moves];
+            long[] times = new long[moves];
+            int cell = 0;
+            long time = 0;
+            for (int i = 0; i < moves; i++) {
+                long value = readVarint(buffer);
+                flags[i] = (value & 1) == 1;
+                long delta = value >>> 1;
+                cell += (int) ((delta >>> 1) ^ -(delta & 1));
+                time += readVarint(buffer);
+                if (cell < 0 || cell >= tiles) {
+                    throw new IOException("Invalid tile in move " + i);
+                }
+                cells[i] = cell;
+                times[i] = time;
+            }
+            return new Replay(rows, cols, mines, seed, mineLayout, flags, cells, times);
+        } catch (RuntimeException e) {
+            throw new IOException("Invalid replay", e); // Data ended early or a number was too large
+        }
+    }
+
+    static void writeVarint(ByteBuffer buffer, long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    static long readVarint(ByteBuffer buffer) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IOException("Varint is too long");
+    }
+}
@@ -0,0 +1,120 @@
+package com.github.AndrewAlbizati;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Plays a replay on a headless board and can jump to any move.
+ * The state of the game is saved every few moves (a keyframe), so jumping backwards or far ahead only replays
+ * the moves after the closest keyframe instead of the whole game.
+ */
+public class ReplayPlayer {
+    private static final int MIN_KEYFRAME_INTERVAL = 64;
+    private static final long MAX_KEYFRAME_MEMORY = 64L * 1024 * 1024;
+
+    private final Replay replay;
+    private final GameEngine engine;
+    private final GameEngine.Snapshot start;
+    private final int keyframeInterval;
+    private final List<GameEngine.Snapshot> keyframes = new ArrayList<>(); // keyframes.get(k) is the state after k * keyframeInterval moves
+
+    private int position = 0;
+
+    /**
+     * Sets up the replay before its first move.
+     * @param replay The replay.
+     */
+    public ReplayPlayer(Replay replay) {
+        this.replay = replay;
+
+        // Place the mines before the first move, so that every keyframe has the same mines
+        Board board = new Board(replay.getRows(), replay.getColumns(), replay.getMines());
+        long[] mineLayout = replay.getMineLayout();
+        if (mineLayout != null) {
+            board.setMines(mineLayout);
+        } else {
+            int firstReveal = 0;
+            while (firstReveal < replay.getMoves() && replay.getType(firstReveal) != Move.Type.REVEAL) {
+                firstReveal++;
+            }
+            int cell = firstReveal < replay.getMoves() ? replay.getCell(firstReveal) : 0;
+            GameEngine.placeMines(board, replay.getSeed(), board.getRow(cell), board.getColumn(cell));
+        }
+        engine = new GameEngine(board);
+        start = engine.snapshot();
+        keyframes.add(start);
+
+        // Space the keyframes out on large boards so they don't use too much memory
+        long keyframeSize = 2L * engine.getBoard().getCells() / 8;
+        long keyframeCount = Math.max(MAX_KEYFRAME_MEMORY / Math.max(keyframeSize, 1), 1);
+        keyframeInterval = (int) Math.max(MIN_KEYFRAME_INTERVAL, replay.getMoves() / keyframeCount + 1);
+    }
+
+    public Replay getReplay() {
+        return replay;
+    }
+
+    /**
+     * @return The board being played on. Tiles change whenever the position changes.
+     */
+    public Board getBoard() {
+        return engine.getBoard();
+    }
+
+    public GameEngine getEngine() {
+        return engine;
+    }
+
+    /**
+     * @return The amount of moves that have been played.
+     */
+    public int getPosition() {
+        return position;
+    }
+
+    /**
+     * Plays the next move.
+     * @return if there was a move left to play.
+     */
+    public boolean step() {
+        if (position >= replay.getMoves()) {
+            return false;
+        }
+        apply(position);
+        position++;
+        if (position % keyframeInterval == 0 && position / keyframeInterval == keyframes.size()) {
+            keyframes.add(engine.snapshot());
+        }
+        return true;
+    }
+
+    /**
+     * Changes the board to how it was after an amount of moves.
+     * @param target The amount of moves, between 0 and getReplay().getMoves().
+     */
+    public void seek(int target) {
+        target = Math.max(0, Math.min(target, replay.getMoves()));
+
+        // Continue from the current position if no keyframe is closer
+        int keyframe = Math.min(target / keyframeInterval, keyframes.size() - 1);
+        if (target < position || position < keyframe * keyframeInterval) {
+            engine.restore(keyframes.get(keyframe));
+            position = keyframe * keyframeInterval;
+        }
+
+        while (position < target) {
+            step();
+        }
+    }
+
+    private void apply(int move) {
+        Board board = engine.getBoard();
+        int cell = replay.getCell(move);
+        int r = board.getRow(cell);
+        int c = board.getColumn(cell);
+        boolean changed = replay.getType(move) == Move.Type.FLAG ? engine.rightClick(r, c) : engine.leftClick(r, c);
+        if (!changed) {
+            throw new IllegalStateException("Move " + move + " of the replay doesn't change the board");
+        }
+    }
+}
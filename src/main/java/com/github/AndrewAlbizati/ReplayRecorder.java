@@ -0,0 +1,90 @@
+package com.github.AndrewAlbizati;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Records the clicks of a game in the format described in Replay, encoding each click as it is made.
+ * A click usually takes 2 to 4 bytes.
+ */
+public class ReplayRecorder {
+    private static final int MAX_MOVE_SIZE = 20; // Two varints of up to 10 bytes
+
+    private final int rows;
+    private final int cols;
+    private final int mines;
+    private final long seed;
+    private final long[] mineLayout;
+
+    private ByteBuffer moves = ByteBuffer.allocate(256);
+    private int moveCount = 0;
+    private int lastCell = 0;
+    private long lastTime = 0;
+
+    /**
+     * @param rows The amount of rows on the board.
+     * @param cols The amount of columns on the board.
+     * @param mines The amount of mines on the board.
+     * @param seed The seed the mines are placed with on the first click.
+     * @param mineLayout The mines in the format of Board.copyMines() if they weren't placed from the seed, otherwise null.
+     */
+    public ReplayRecorder(int rows, int cols, int mines, long seed, long[] mineLayout) {
+        this.rows = rows;
+        this.cols = cols;
+        this.mines = mines;
+        this.seed = seed;
+        this.mineLayout = mineLayout == null ? null : mineLayout.clone();
+    }
+
+    /**
+     * Adds a click that changed the board.
+     * @param type If the click revealed a tile or placed or removed a flag.
+     * @param cell The index (row * columns + column) of the tile.
+     * @param time The milliseconds since the start of the game.
+     */
+    public void record(Move.Type type, int cell, long time) {
+        if (moves.remaining() < MAX_MOVE_SIZE) {
+            moves = ByteBuffer.wrap(Arrays.copyOf(moves.array(), moves.capacity() * 2)).position(moves.position());
+        }
+
+        long delta = cell - lastCell;
+        long zigzag = (delta << 1) ^ (delta >> 63);
+        Replay.writeVarint(moves, (zigzag << 1) | (type == Move.Type.FLAG ? 1 : 0));
+        Replay.writeVarint(moves, Math.max(time - lastTime, 0));
+
+        lastCell = cell;
+        lastTime = Math.max(time, lastTime);
+        moveCount++;
+    }
+
+    public int getMoves() {
+        return moveCount;
+    }
+
+    /**
+     * @return The replay of the clicks recorded so far, which can be read with Replay.read().
+     */
+    public byte[] toBytes() {
+        int tiles = rows * cols;
+        int layoutSize = mineLayout == null ? 0 : (tiles + 7) >>> 3;
+        ByteBuffer buffer = ByteBuffer.allocate(64 + layoutSize + moves.position());
+        buffer.putInt(Replay.MAGIC).put(Replay.VERSION);
+        Replay.writeVarint(buffer, rows);
+        Replay.writeVarint(buffer, cols);
+        Replay.writeVarint(buffer, mines);
+        buffer.putLong(seed);
+
+        if (mineLayout == null) {
+            buffer.put((byte) 0);
+        } else {
+            buffer.put((byte) 1);
+            for (int i = 0; i < layoutSize; i++) {
+                buffer.put((byte) (mineLayout[i >>> 3] >>> ((i & 7) << 3)));
+            }
+        }
+
+        Replay.writeVarint(buffer, moveCount);
+        buffer.put(moves.array(), 0, moves.position());
+        return Arrays.copyOf(buffer.array(), buffer.position());
+    }
+}
@@ -0,0 +1,130 @@
+package com.github.AndrewAlbizati;
+
+import javax.swing.*;
+import java.awt.*;
+
+/**
+ * Shows a replay. The slider jumps to any move, the play button plays the moves at the speed they were made.
+ */
+public class ReplayViewer extends JFrame {
+    private final ReplayPlayer player;
+    private final BoardPanel boardPanel;
+    private final JSlider slider;
+    private final JButton playButton;
+    private final JLabel positionLabel;
+
+    private final GameClock clock = new GameClock();
+    private long playbackStart = 0; // The time in the replay when the clock was started
+    private boolean updatingSlider = false;
+
+    /**
+     * @param replay The replay that is shown, starting before its first move.
+     * @throws IllegalStateException If a move of the replay doesn't change the board.
+     */
+    public ReplayViewer(Replay replay) {
+        this.player = new ReplayPlayer(replay);
+        player.seek(replay.getMoves()); // Checks every move and saves the keyframes before anything is shown
+        player.seek(0);
+
+        this.setTitle("Minesweeper (Replay, " + replay.getRows() + " x " + replay.getColumns() + ", " + replay.getMines() + " bombs)");
+        this.setLayout(new BorderLayout());
+        this.setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
+
+        Resources.setIcon(this);
+
+        boardPanel = new BoardPanel(player.getBoard());
+        this.add(new JScrollPane(boardPanel), BorderLayout.CENTER);
+
+        playButton = new JButton("Play");
+        playButton.setFocusable(false);
+        playButton.addActionListener(e -> togglePlaying());
+
+        slider = new JSlider(0, replay.getMoves(), 0);
+        slider.addChangeListener(e -> {
+            if (!updatingSlider) {
+                pause();
+                showMove(slider.getValue());
+            }
+        });
+
+        positionLabel = new JLabel();
+        positionLabel.setFont(Resources.SMALL_FONT);
+
+        JPanel controlPanel = new JPanel(new BorderLayout(8, 0));
+        controlPanel.setBorder(BorderFactory.createEmptyBorder(4, 8, 4, 8));
+        controlPanel.add(playButton, BorderLayout.WEST);
+        controlPanel.add(slider, BorderLayout.CENTER);
+        controlPanel.add(positionLabel, BorderLayout.EAST);
+        this.add(controlPanel, BorderLayout.SOUTH);
+
+        updatePositionLabel();
+        this.pack();
+    }
+
+    private void togglePlaying() {
+        if (clock.isRunning()) {
+            pause();
+            return;
+        }
+
+        if (player.getPosition() == player.getReplay().getMoves()) {
+            showMove(0); // Start over
+        }
+        playbackStart = player.getPosition() == 0 ? 0 : player.getReplay().getTime(player.getPosition() - 1);
+        clock.start();
+        clock.startTicking(this::advance, 15);
+        playButton.setText("Pause");
+    }
+
+    private void pause() {
+        clock.stop();
+        playButton.setText("Play");
+    }
+
+    /**
+     * Plays every move whose time has passed.
+     */
+    private void advance() {
+        if (!clock.isRunning()) {
+            return;
+        }
+
+        Replay replay = player.getReplay();
+        long time = playbackStart + clock.getElapsedMillis();
+        int position = player.getPosition();
+        while (position < replay.getMoves() && replay.getTime(position) <= time) {
+            position++;
+        }
+        if (position != player.getPosition()) {
+            showMove(position);
+        }
+        if (position == replay.getMoves()) {
+            pause();
+        }
+    }
+
+    private void showMove(int move) {
+        player.seek(move);
+        boardPanel.repaint();
+
+        updatingSlider = true;
+        slider.setValue(move);
+        updatingSlider = false;
+        updatePositionLabel();
+    }
+
+    private void updatePositionLabel() {
+        int position = player.getPosition();
+        long time = position == 0 ? 0 : player.getReplay().getTime(position - 1);
+        positionLabel.setText("Move " + position + " / " + player.getReplay().getMoves() + ", " + GameClock.format(time) + " s");
+    }
+
+    /**
+     * Stops playing when the window is closed.
+     */
+    @Override
+    public void dispose() {
+        clock.stop();
+        super.dispose();
+    }
+}
@@ -0,0 +1,51 @@
+package com.github.AndrewAlbizati;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * The image and fonts shared by every window. They are created once, not each time a window is opened.
+ */
+public final class Resources {
+    public static final Font TITLE_FONT = new Font("Verdana", Font.PLAIN, 24);
+    public static final Font LABEL_FONT = new Font("Verdana", Font.PLAIN, 18);
+    public static final Font SMALL_FONT = new Font("Verdana", Font.PLAIN, 12);
+    public static final Font TILE_FONT = new Font("Verdana", Font.BOLD, TileGlyphs.TILE_SIZE * 5 / 8);
+
+    private static final BufferedImage BOMB_IMAGE = loadImage("/bomb.png");
+
+    private Resources() {
+    }
+
+    /**
+     * @return The image of a bomb, null if it couldn't be loaded.
+     */
+    public static BufferedImage bomb() {
+        return BOMB_IMAGE;
+    }
+
+    /**
+     * Uses the bomb as the icon of a window.
+     * @param window The window, keeps the default Java logo if the image couldn't be loaded.
+     */
+    public static void setIcon(Window window) {
+        if (BOMB_IMAGE != null) {
+            window.setIconImage(BOMB_IMAGE);
+        }
+    }
+
+    private static BufferedImage loadImage(String name) {
+        try (InputStream inputStream = Resources.class.getResourceAsStream(name)) {
+            if (inputStream == null) {
+                throw new NullPointerException(name.substring(1) + " not found");
+            }
+            return ImageIO.read(inputStream);
+        } catch (NullPointerException | IOException e) {
+            e.printStackTrace(); // Ignore, callers fall back to something else
+            return null;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.github.AndrewAlbizati;
+
+import java.util.Random;
+
+/**
+ * Plays like a beginner who only looks at one number at a time. Starts in the center, then:
+ * if a number has as many hidden neighbors as it has mines left, one of them is flagged;
+ * if a number has as many flags around it as its number, it is chorded.
+ * When neither rule applies anywhere, it guesses a random hidden tile.
+ */
+public class RulePlayer implements Player {
+    private BoardView view;
+    private Topology topology;
+    private Random rand;
+    private boolean firstMove;
+    private int next; // The tile the search for a rule to apply starts at
+
+    @Override
+    public String getName() {
+        return "rules";
+    }
+
+    @Override
+    public void newGame(BoardView view, Random rand) {
+        this.view = view;
+        this.topology = view.getTopology();
+        this.rand = rand;
+        this.firstMove = true;
+        this.next = 0;
+    }
+
+    @Override
+    public Move nextMove() {
+        int rows = view.getRows();
+        int cols = view.getColumns();
+        if (firstMove) {
+            firstMove = false;
+            return Move.reveal(rows / 2, cols / 2, false);
+        }
+
+        // Start where the last rule was applied, the tiles around it are the most likely to have another move
+        int cells = rows * cols;
+        for (int i = 0; i < cells; i++) {
+            int cell = (next + i) % cells;
+            Move move = applyRules(cell / cols, cell % cols);
+            if (move != null) {
+                next = cell;
+                return move;
+            }
+        }
+
+        int r;
+        int c;
+        do {
+            r = rand.nextInt(rows);
+            c = rand.nextInt(cols);
+        } while (view.isRevealed(r, c) || view.isFlagged(r, c));
+        return Move.reveal(r, c, true);
+    }
+
+    /**
+     * @return A move certain to be correct that the number on a tile allows, null if there is none.
+     */
+    private Move applyRules(int r, int c) {
+        if (!view.isRevealed(r, c)) {
+            return null;
+        }
+        int number = view.getNumber(r, c);
+        if (number == 0) {
+            return null;
+        }
+
+        int cell = r * view.getColumns() + c;
+        int flags = 0;
+        int hidden = 0;
+        int hiddenCell = -1;
+        for (int offset : topology.offsets(cell)) {
+            int n = cell + offset;
+            if (view.isFlagged(n)) {
+                flags++;
+            } else if (!view.isRevealed(n)) {
+                hidden++;
+                hiddenCell = n;
+            }
+        }
+
+        if (hidden == 0) {
+            return null;
+        }
+        if (flags == number) {
+            return Move.chord(r, c);
+        }
+        if (number - flags == hidden) {
+            return Move.flag(hiddenCell / view.getColumns(), hiddenCell % view.getColumns());
+        }
+        return null;
+    }
+}
@@ -0,0 +1,264 @@
+package com.github.AndrewAlbizati;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.CRC32;
+
+/**
+ * A copy of a game in progress that can be written to a file and continued later.
+ *
+ * Binary format, big-endian:
+ *   int magic "MSSV", byte version
+ *   int rows, int columns, int mines, long seed
+ *   byte difficulty (ordinal, -1 for custom boards), byte options (1 = mines placed, 2 = no guessing)
+ *   int clicks, long elapsed milliseconds, int length of the replay
+ *   the mines, revealed tiles and flags, each as (rows * columns + 63) / 64 longs with one bit per tile
+ *   the replay of the game so far, in the format of Replay
+ *   int CRC32 of everything before it
+ *
+ * The tiles are written and read as whole long arrays through a file channel, so even boards with millions
+ * of tiles take milliseconds. A file is written next to the save and then moved over it, so a save is never half written.
+ */
+public class SavedGame {
+    public static final String FILE_NAME = "minesweeper-save.bin";
+
+    private static final int MAGIC = 0x4D535356; // "MSSV"
+    private static final byte VERSION = 1;
+    private static final int HEADER_SIZE = 4 + 1 + 4 + 4 + 4 + 8 + 1 + 1 + 4 + 8 + 4;
+    private static final byte MINES_PLACED = 1;
+    private static final byte NO_GUESS = 2;
+
+    // Saves are written one at a time, in the order they were made
+    private static final ExecutorService WRITER = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "saved-game-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final int rows;
+    private final int cols;
+    private final int mines;
+    private final long seed;
+    private final Difficulties difficulty;
+    private final boolean minesPlaced;
+    private final boolean noGuess;
+    private final int clicks;
+    private final long elapsedMillis;
+    private final long[] mineBits;
+    private final long[] revealedBits;
+    private final long[] flagBits;
+    private final byte[] replay;
+
+    private SavedGame(int rows, int cols, int mines, long seed, Difficulties difficulty, boolean minesPlaced, boolean noGuess,
+                      int clicks, long elapsedMillis, long[] mineBits, long[] revealedBits, long[] flagBits, byte[] replay) {
+        this.rows = rows;
+        this.cols = cols;
+        this.mines = mines;
+        this.seed = seed;
+        this.difficulty = difficulty;
+        this.minesPlaced = minesPlaced;
+        this.noGuess = noGuess;
+        this.clicks = clicks;
+        this.elapsedMillis = elapsedMillis;
+        this.mineBits = mineBits;
+        this.revealedBits = revealedBits;
+        this.flagBits = flagBits;
+        this.replay = replay;
+    }
+
+    /**
+     * Copies the state of a game. Must be called on the thread that plays the game, the copy can be written on any thread.
+     * @param engine The game.
+     * @param difficulty The difficulty of the game, null for custom boards.
+     * @param noGuess If the board can be solved without guessing.
+     * @param elapsedMillis The milliseconds the game has been played.
+     * @param recorder The clicks made so far.
+     * @return The copy.
+     */
+    public static SavedGame of(GameEngine engine, Difficulties difficulty, boolean noGuess, long elapsedMillis, ReplayRecorder recorder) {
+        Board board = engine.getBoard();
+        return new SavedGame(board.getRows(), board.getColumns(), board.getMines(), engine.getSeed(), difficulty,
+                engine.isMinesPlaced(), noGuess, engine.getClicks(), elapsedMillis,
+                board.copyMines(), board.copyRevealed(), board.copyFlags(), recorder.toBytes());
+    }
+
+    public Difficulties getDifficulty() {
+        return difficulty;
+    }
+
+    public boolean isNoGuess() {
+        return noGuess;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    /**
+     * @return A game in the same state as when it was saved.
+     */
+    public GameEngine toEngine() {
+        Board board = new Board(rows, cols, mines);
+        if (minesPlaced) {
+            board.setMines(mineBits);
+        }
+        board.restore(revealedBits, flagBits);
+        return new GameEngine(board, seed, minesPlaced, clicks);
+    }
+
+    /**
+     * @return A recorder with the clicks made before the game was saved, to continue recording.
+     * @throws IOException If the replay in the save is invalid.
+     */
+    public ReplayRecorder toRecorder() throws IOException {
+        Replay saved = Replay.read(replay);
+        ReplayRecorder recorder = new ReplayRecorder(rows, cols, mines, saved.getSeed(), saved.getMineLayout());
+        for (int i = 0; i < saved.getMoves(); i++) {
+            recorder.record(saved.getType(i), saved.getCell(i), saved.getTime(i));
+        }
+        return recorder;
+    }
+
+    /**
+     * Writes the save to a file, replacing the file in a single step.
+     * @param path The file.
+     */
+    public void write(Path path) throws IOException {
+        GameEvents.PersistenceEvent event = new GameEvents.PersistenceEvent();
+        event.begin();
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC).put(VERSION);
+            header.putInt(rows).putInt(cols).putInt(mines).putLong(seed);
+            header.put(difficulty == null ? -1 : (byte) difficulty.ordinal());
+            header.put((byte) ((minesPlaced ? MINES_PLACED : 0) | (noGuess ? NO_GUESS : 0)));
+            header.putInt(clicks).putLong(elapsedMillis).putInt(replay.length);
+            header.flip();
+
+            ByteBuffer bits = ByteBuffer.allocateDirect(3 * mineBits.length * Long.BYTES);
+            bits.asLongBuffer().put(mineBits).put(revealedBits).put(flagBits);
+
+            CRC32 crc = new CRC32();
+            crc.update(header.duplicate());
+            crc.update(bits.duplicate());
+            crc.update(replay);
+            ByteBuffer trailer = ByteBuffer.allocate(Integer.BYTES).putInt((int) crc.getValue()).flip();
+
+            ByteBuffer[] buffers = {header, bits, ByteBuffer.wrap(replay), trailer};
+            long remaining = HEADER_SIZE + bits.capacity() + replay.length + Integer.BYTES;
+            event.bytes = remaining;
+            while (remaining > 0) {
+                remaining -= channel.write(buffers);
+            }
+            channel.force(true);
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        event.operation = "write save";
+        event.commit();
+    }
+
+    /**
+     * Writes the save on a background thread.
+     * @param path The file.
+     * @return Completes once the save is written.
+     */
+    public CompletableFuture<Void> writeAsync(Path path) {
+        return CompletableFuture.runAsync(() -> {
+            try {
+                write(path);
+            } catch (IOException e) {
+                e.printStackTrace(); // Ignore, the previous save is kept
+            }
+        }, WRITER);
+    }
+
+    /**
+     * Deletes a save on the background thread, after any saves that are still being written.
+     * @param path The file.
+     */
+    public static CompletableFuture<Void> deleteAsync(Path path) {
+        return CompletableFuture.runAsync(() -> {
+            try {
+                Files.deleteIfExists(path);
+            } catch (IOException e) {
+                e.printStackTrace(); // Ignore, the finished game can be continued
+            }
+        }, WRITER);
+    }
+
+    /**
+     * @param path A file written by write().
+     * @return The save.
+     * @throws IOException If the file can't be read or isn't a valid save.
+     */
+    public static SavedGame read(Path path) throws IOException {
+        GameEvents.PersistenceEvent event = new GameEvents.PersistenceEvent();
+        event.begin();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE + Integer.BYTES || size > Integer.MAX_VALUE) {
+                throw new IOException("Not a saved game");
+            }
+
+            // Read instead of mapping the file, a mapped file can't be replaced on Windows until it is garbage collected
+            ByteBuffer buffer = ByteBuffer.allocate((int) size);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) {
+                    throw new IOException("Unexpected end of " + path);
+                }
+            }
+            buffer.flip();
+
+            CRC32 crc = new CRC32();
+            crc.update(buffer.duplicate().limit((int) size - Integer.BYTES));
+            if ((int) crc.getValue() != buffer.getInt((int) size - Integer.BYTES)) {
+                throw new IOException("The saved game is damaged");
+            }
+
+            if (buffer.getInt() != MAGIC || buffer.get() != VERSION) {
+                throw new IOException("Not a saved game");
+            }
+            int rows = buffer.getInt();
+            int cols = buffer.getInt();
+            int mines = buffer.getInt();
+            long seed = buffer.getLong();
+            byte difficulty = buffer.get();
+            byte options = buffer.get();
+            int clicks = buffer.getInt();
+            long elapsedMillis = buffer.getLong();
+            int replayLength = buffer.getInt();
+
+            if (rows <= 0 || cols <= 0 || (long) rows * cols > Integer.MAX_VALUE - 63 || difficulty < -1 || difficulty >= Difficulties.values().length) {
+                throw new IOException("The saved game is damaged");
+            }
+            int words = (rows * cols + 63) >>> 6;
+            if ((long) HEADER_SIZE + 3L * words * Long.BYTES + replayLength + Integer.BYTES != size || replayLength < 0) {
+                throw new IOException("The saved game is damaged");
+            }
+
+            long[] mineBits = new long[words];
+            long[] revealedBits = new long[words];
+            long[] flagBits = new long[words];
+            buffer.asLongBuffer().get(mineBits).get(revealedBits).get(flagBits);
+            buffer.position(buffer.position() + 3 * words * Long.BYTES);
+            byte[] replay = new byte[replayLength];
+            buffer.get(replay);
+
+            event.operation = "read save";
+            event.bytes = size;
+            event.commit();
+            return new SavedGame(rows, cols, mines, seed, difficulty == -1 ? null : Difficulties.values()[difficulty],
+                    (options & MINES_PLACED) != 0, (options & NO_GUESS) != 0, clicks, elapsedMillis,
+                    mineBits, revealedBits, flagBits, replay);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.github.AndrewAlbizati;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates executors that run every task on its own thread, for sessions that spend most of their time waiting.
+ * On Java 21 and newer the threads are virtual threads, so there can be a very large amount of them.
+ * The program is built for Java 17, so virtual threads are looked up when the program runs.
+ * Older versions use platform threads with a small stack instead.
+ */
+final class SessionThreads {
+    private static final long PLATFORM_STACK_SIZE = 256 * 1024;
+
+    private SessionThreads() {
+    }
+
+    /**
+     * @param name The name of the threads when platform threads are used.
+     * @return An executor that starts a new thread for every task.
+     */
+    static ExecutorService newExecutor(String name) {
+        try {
+            Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) method.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            // Ignore, virtual threads aren't available
+        }
+
+        AtomicInteger count = new AtomicInteger();
+        return Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(null, runnable, name + "-" + count.incrementAndGet(), PLATFORM_STACK_SIZE);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * @return if newExecutor() uses virtual threads.
+     */
+    static boolean isVirtual() {
+        try {
+            Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+}
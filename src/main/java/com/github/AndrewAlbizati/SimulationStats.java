@@ -0,0 +1,144 @@
+package com.github.AndrewAlbizati;
+
+import java.util.Locale;
+
+/**
+ * Totals from a batch of simulated games. Each thread keeps its own totals, which are merged afterwards.
+ */
+public class SimulationStats {
+    public static final String CSV_HEADER = "difficulty,player,games,wins,win_rate,moves_per_game,guesses_per_game,first_click_zero_rate,cells_per_move,games_per_second";
+
+    private static final double WILSON_Z = 1.959964; // 95% of a normal distribution lies within this many standard deviations
+
+    private long games = 0;
+    private long wins = 0;
+    private long moves = 0;
+    private long guesses = 0;
+    private long firstClickZeros = 0;
+    private long revealMoves = 0;
+    private long cellsRevealed = 0;
+
+    /**
+     * Adds a finished game.
+     * @param won If the game was won.
+     * @param moves The amount of moves made.
+     * @param guesses The amount of moves the player wasn't certain about.
+     * @param firstClickZero If the first tile revealed had no adjacent mines.
+     */
+    public void addGame(boolean won, int moves, int guesses, boolean firstClickZero) {
+        games++;
+        if (won) {
+            wins++;
+        }
+        this.moves += moves;
+        this.guesses += guesses;
+        if (firstClickZero) {
+            firstClickZeros++;
+        }
+    }
+
+    /**
+     * Adds a move that revealed tiles.
+     * @param cells The amount of tiles revealed by the move.
+     */
+    public void addReveal(int cells) {
+        revealMoves++;
+        cellsRevealed += cells;
+    }
+
+    /**
+     * Adds the totals of another batch to these.
+     */
+    public void merge(SimulationStats other) {
+        games += other.games;
+        wins += other.wins;
+        moves += other.moves;
+        guesses += other.guesses;
+        firstClickZeros += other.firstClickZeros;
+        revealMoves += other.revealMoves;
+        cellsRevealed += other.cellsRevealed;
+    }
+
+    public long getGames() {
+        return games;
+    }
+
+    public long getWins() {
+        return wins;
+    }
+
+    public double getWinRate() {
+        return ratio(wins, games);
+    }
+
+    /**
+     * @return The lower end of the 95% confidence interval of the win rate (Wilson score interval).
+     */
+    public double getWinRateLower() {
+        return wilson(-WILSON_Z);
+    }
+
+    /**
+     * @return The upper end of the 95% confidence interval of the win rate (Wilson score interval).
+     */
+    public double getWinRateUpper() {
+        return wilson(WILSON_Z);
+    }
+
+    /**
+     * Unlike the usual interval of the rate plus or minus z standard errors, this one stays between 0 and 1
+     * and is still right for win rates close to 0 or 1, like random players on Expert.
+     */
+    private double wilson(double z) {
+        if (games == 0) {
+            return z < 0 ? 0 : 1;
+        }
+        double p = getWinRate();
+        double z2 = z * z;
+        double center = p + z2 / (2 * games);
+        double spread = z * Math.sqrt(p * (1 - p) / games + z2 / (4.0 * games * games));
+        return Math.min(Math.max((center + spread) / (1 + z2 / games), 0), 1);
+    }
+
+    public long getMoves() {
+        return moves;
+    }
+
+    public double getMovesPerGame() {
+        return ratio(moves, games);
+    }
+
+    public double getGuessesPerGame() {
+        return ratio(guesses, games);
+    }
+
+    public double getFirstClickZeroRate() {
+        return ratio(firstClickZeros, games);
+    }
+
+    public double getCellsPerMove() {
+        return ratio(cellsRevealed, revealMoves);
+    }
+
+    private static double ratio(long a, long b) {
+        return b == 0 ? 0 : (double) a / b;
+    }
+
+    /**
+     * @return A line for a CSV file with the columns of CSV_HEADER.
+     */
+    public String toCsv(String difficulty, String player, double gamesPerSecond) {
+        return String.format(Locale.ROOT, "%s,%s,%d,%d,%.6f,%.4f,%.4f,%.6f,%.4f,%.1f",
+                difficulty, player, games, wins, getWinRate(), getMovesPerGame(), getGuessesPerGame(),
+                getFirstClickZeroRate(), getCellsPerMove(), gamesPerSecond);
+    }
+
+    /**
+     * @return A JSON object with the same values as toCsv().
+     */
+    public String toJson(String difficulty, String player, double gamesPerSecond) {
+        return String.format(Locale.ROOT, "{\"difficulty\": \"%s\", \"player\": \"%s\", \"games\": %d, \"wins\": %d, \"win_rate\": %.6f, \"moves_per_game\": %.4f, \"guesses_per_game\": %.4f, \"first_click_zero_rate\": %.6f, \"cells_per_move\": %.4f, \"games_per_second\": %.1f}",
+                difficulty, player, games, wins, getWinRate(), getMovesPerGame(), getGuessesPerGame(),
+                getFirstClickZeroRate(), getCellsPerMove(), gamesPerSecond);
+    }
+}
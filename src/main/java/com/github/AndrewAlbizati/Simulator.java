@@ -0,0 +1,331 @@
+package com.github.AndrewAlbizati;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Plays many games without a user interface and writes statistics about them.
+ * Every game gets its own seed made from the master seed, the difficulty and the number of the game,
+ * so the same master seed always gives the same games and results, no matter how many threads are used.
+ *
+ * With --corpus the games are played on the boards of a BoardCorpus instead, in order, so every player
+ * can be compared on exactly the same boards. The difficulty is the one with the size of the corpus's boards.
+ * With --topology the games are played on boards of another shape, with the size and mines of the difficulty.
+ *
+ * Usage: Simulator [--games N] [--difficulty all|beginner|intermediate|expert] [--player solver|probability|rules|random]
+ *                  [--threads N] [--seed N] [--report-every N] [--out results.csv|results.json] [--corpus FILE]
+ *                  [--topology square|torus|hex]
+ */
+public class Simulator {
+    private final Difficulties difficulty;
+    private final String playerName;
+    private final long masterSeed;
+    private final BoardCorpus corpus;
+    private final Worker[] workers;
+
+    /**
+     * @param difficulty The difficulty of every game.
+     * @param playerName The strategy used to play, see createPlayer().
+     * @param masterSeed The seed every game's seed is made from.
+     * @param threads The amount of workers, each with its own game and player.
+     */
+    public Simulator(Difficulties difficulty, String playerName, long masterSeed, int threads) {
+        this(difficulty, playerName, masterSeed, threads, null);
+    }
+
+    /**
+     * @param difficulty The difficulty of every game.
+     * @param playerName The strategy used to play, see createPlayer().
+     * @param masterSeed The seed every game's seed is made from.
+     * @param threads The amount of workers, each with its own game and player.
+     * @param corpus The boards played, game i is played on board i modulo its size. Null to place mines with the game's seed.
+     */
+    public Simulator(Difficulties difficulty, String playerName, long masterSeed, int threads, BoardCorpus corpus) {
+        this(difficulty, playerName, masterSeed, threads, corpus, Topology.Shape.SQUARE);
+    }
+
+    /**
+     * @param difficulty The difficulty of every game.
+     * @param playerName The strategy used to play, see createPlayer().
+     * @param masterSeed The seed every game's seed is made from.
+     * @param threads The amount of workers, each with its own game and player.
+     * @param corpus The boards played, game i is played on board i modulo its size. Null to place mines with the game's seed.
+     * @param shape The shape of every board. The boards of a corpus are always square.
+     */
+    public Simulator(Difficulties difficulty, String playerName, long masterSeed, int threads, BoardCorpus corpus, Topology.Shape shape) {
+        this.difficulty = difficulty;
+        this.playerName = playerName;
+        this.masterSeed = masterSeed;
+        this.corpus = corpus;
+        this.workers = new Worker[threads];
+        for (int i = 0; i < threads; i++) {
+            GameEngine engine = new GameEngine(difficulty.rows, difficulty.columns, difficulty.mines, masterSeed, shape);
+            workers[i] = new Worker(engine, createPlayer(playerName));
+        }
+    }
+
+    /**
+     * @param name The name of a strategy.
+     * @return A new player using that strategy.
+     */
+    public static Player createPlayer(String name) {
+        return switch (name) {
+            case "solver" -> new SolverPlayer();
+            case "random" -> new RandomPlayer();
+            case "rules" -> new RulePlayer();
+            case "probability" -> new ProbabilityPlayer();
+            default -> throw new IllegalArgumentException("Unknown player: " + name);
+        };
+    }
+
+    /**
+     * @return The seed of a game, mixed so that nearby games get unrelated seeds.
+     */
+    public static long gameSeed(long masterSeed, Difficulties difficulty, long game) {
+        long z = masterSeed + (difficulty.ordinal() + 1) * 0xBF58476D1CE4E5B9L + game * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Plays a range of games, spread over every worker.
+     * @param executor Runs the workers, needs at least as many threads as there are workers.
+     * @param first The number of the first game.
+     * @param count The amount of games.
+     * @return The totals of those games.
+     */
+    public SimulationStats run(ExecutorService executor, long first, long count) throws InterruptedException {
+        List<Future<SimulationStats>> results = new ArrayList<>();
+        for (int i = 0; i < workers.length; i++) {
+            Worker worker = workers[i];
+            long start = first + i;
+            results.add(executor.submit(() -> worker.play(start, first + count, workers.length)));
+        }
+
+        SimulationStats stats = new SimulationStats();
+        try {
+            for (Future<SimulationStats> result : results) {
+                stats.merge(result.get());
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("A simulated game failed", e.getCause());
+        }
+        return stats;
+    }
+
+    /**
+     * A game and a player used by one thread at a time.
+     */
+    private class Worker {
+        private final GameEngine engine;
+        private final Player player;
+        private final Random playerRand = new Random();
+
+        private Worker(GameEngine engine, Player player) {
+            this.engine = engine;
+            this.player = player;
+        }
+
+        /**
+         * Plays every step-th game from start (inclusive) to end (exclusive).
+         */
+        private SimulationStats play(long start, long end, int step) {
+            SimulationStats stats = new SimulationStats();
+            for (long game = start; game < end; game += step) {
+                playGame(game, stats);
+            }
+            return stats;
+        }
+
+        private void playGame(long game, SimulationStats stats) {
+            Board board = engine.getBoard();
+            long seed = gameSeed(masterSeed, difficulty, game);
+            if (corpus == null) {
+                engine.newGame(seed);
+            } else {
+                try {
+                    BoardCodec.Layout layout = corpus.get(game % corpus.size());
+                    if (layout.rows() != board.getRows() || layout.cols() != board.getColumns()) {
+                        throw new IllegalStateException("Board " + game % corpus.size() + " of the corpus has a different size");
+                    }
+                    engine.newGame(layout.mineBits());
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            playerRand.setSeed(~seed);
+            player.newGame(new VisibleBoard(board), playerRand); // Not the board itself, which would show the mines
+
+            int moves = 0;
+            int guesses = 0;
+            boolean firstClickZero = false;
+            while (!engine.isEnded()) {
+                Move move = player.nextMove();
+                boolean changed = switch (move.type()) {
+                    case REVEAL -> engine.leftClick(move.row(), move.col());
+                    case FLAG -> engine.rightClick(move.row(), move.col());
+                    case CHORD -> engine.chord(move.row(), move.col());
+                };
+                if (!changed) {
+                    throw new IllegalStateException(player.getName() + " made a move that didn't change the board: " + move);
+                }
+
+                moves++;
+                if (move.guess()) {
+                    guesses++;
+                }
+                if (move.type() != Move.Type.FLAG) {
+                    if (moves == 1) {
+                        firstClickZero = board.getNumber(move.row(), move.col()) == 0 && !board.hasMine(move.row(), move.col());
+                    }
+                    CellList revealed = engine.getChangedCells();
+                    stats.addReveal(revealed.size());
+                    player.onRevealed(revealed);
+                }
+            }
+            stats.addGame(engine.isWon(), moves, guesses, firstClickZero);
+        }
+    }
+
+    public static void main(String[] args) {
+        long games = 0; // 0 plays a million games, or every board of the corpus once
+        String difficultyName = "ALL";
+        String playerName = "solver";
+        int threads = Runtime.getRuntime().availableProcessors();
+        long seed = new Random().nextLong();
+        long reportEvery = 100_000;
+        Path out = null;
+        Path corpusPath = null;
+        Topology.Shape shape = Topology.Shape.SQUARE;
+
+        try {
+            for (int i = 0; i < args.length; i++) {
+                String value = i + 1 < args.length ? args[i + 1] : "";
+                switch (args[i]) {
+                    case "--games" -> games = Long.parseLong(value);
+                    case "--difficulty" -> difficultyName = value.toUpperCase(Locale.ROOT);
+                    case "--player" -> playerName = value;
+                    case "--threads" -> threads = Integer.parseInt(value);
+                    case "--seed" -> seed = Long.parseLong(value);
+                    case "--report-every" -> reportEvery = Long.parseLong(value);
+                    case "--out" -> out = Path.of(value);
+                    case "--corpus" -> corpusPath = Path.of(value);
+                    case "--topology" -> shape = Topology.Shape.parse(value);
+                    default -> throw new IllegalArgumentException("Unknown option: " + args[i]);
+                }
+                i++;
+            }
+            createPlayer(playerName);
+            if (games < 0 || threads <= 0 || reportEvery <= 0) {
+                throw new IllegalArgumentException("--games, --threads and --report-every must be positive");
+            }
+            if (corpusPath != null && shape != Topology.Shape.SQUARE) {
+                throw new IllegalArgumentException("The boards of a corpus are square");
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println("Usage: Simulator [--games N] [--difficulty all|beginner|intermediate|expert] [--player solver|probability|rules|random]");
+            System.err.println("                 [--threads N] [--seed N] [--report-every N] [--out results.csv|results.json] [--corpus FILE]");
+            System.err.println("                 [--topology square|torus|hex]");
+            System.exit(1);
+            return;
+        }
+
+        BoardCorpus corpus = null;
+        List<Difficulties> difficulties = new ArrayList<>();
+        if (corpusPath != null) {
+            try {
+                corpus = BoardCorpus.open(corpusPath);
+                if (corpus.size() == 0) {
+                    throw new IOException("The corpus has no boards");
+                }
+                BoardCodec.Layout layout = corpus.get(0);
+                for (Difficulties difficulty : Difficulties.values()) {
+                    if (difficulty.rows == layout.rows() && difficulty.columns == layout.cols() && difficulty.mines == layout.mines()) {
+                        difficulties.add(difficulty);
+                        break;
+                    }
+                }
+                if (difficulties.isEmpty()) {
+                    throw new IOException("The corpus's boards don't match any difficulty");
+                }
+            } catch (IOException e) {
+                System.err.println("Could not open " + corpusPath + ": " + e.getMessage());
+                System.exit(1);
+                return;
+            }
+            if (games == 0) {
+                games = corpus.size();
+            }
+        } else if (difficultyName.equals("ALL")) {
+            difficulties.addAll(List.of(Difficulties.values()));
+        } else {
+            difficulties.add(Difficulties.valueOf(difficultyName));
+        }
+        if (games == 0) {
+            games = 1_000_000;
+        }
+
+        System.out.println("Master seed: " + seed + ", threads: " + threads);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try (BufferedWriter writer = out == null ? null : Files.newBufferedWriter(out, StandardCharsets.UTF_8)) {
+            boolean json = out != null && out.toString().toLowerCase(Locale.ROOT).endsWith(".json");
+            if (writer != null) {
+                writer.write(json ? "[" : SimulationStats.CSV_HEADER);
+                writer.newLine();
+            }
+
+            boolean firstRow = true;
+            for (Difficulties difficulty : difficulties) {
+                Simulator simulator = new Simulator(difficulty, playerName, seed, threads, corpus, shape);
+                SimulationStats total = new SimulationStats();
+                long startTime = System.nanoTime();
+
+                // Write the totals so far after every batch so long runs can be followed
+                for (long first = 0; first < games; first += reportEvery) {
+                    total.merge(simulator.run(executor, first, Math.min(reportEvery, games - first)));
+                    double gamesPerSecond = total.getGames() / ((System.nanoTime() - startTime) / 1e9);
+
+                    System.out.println(total.toCsv(difficulty.name(), playerName, gamesPerSecond));
+                    if (writer != null) {
+                        if (json) {
+                            // The comma is written with the next row, so the array only needs closing at the end
+                            writer.write((firstRow ? "  " : ",\n  ") + total.toJson(difficulty.name(), playerName, gamesPerSecond));
+                        } else {
+                            writer.write(total.toCsv(difficulty.name(), playerName, gamesPerSecond));
+                            writer.newLine();
+                        }
+                        writer.flush();
+                    }
+                    firstRow = false;
+                }
+            }
+
+            if (writer != null && json) {
+                writer.newLine();
+                writer.write("]");
+                writer.newLine();
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            System.exit(1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,372 @@
+package com.github.AndrewAlbizati;
+
+import java.util.Arrays;
+
+/**
+ * Finds the hidden tiles that are certainly safe or certainly mines, using only what the player can see.
+ * Flags placed by the player are not trusted, flagged tiles are treated like any other hidden tile.
+ *
+ * Every revealed tile with hidden neighbors (the frontier) is a constraint: its number minus the neighbors
+ * already known to be mines is the amount of mines among its unknown neighbors. The solver applies,
+ * until nothing changes:
+ * 1. Single tile rules: if no mines are left, every unknown neighbor is safe; if as many mines are left
+ *    as there are unknown neighbors, every unknown neighbor is a mine.
+ * 2. Subset rules between two nearby constraints A and B: if B needs so many more mines than A that every
+ *    tile only B touches must be a mine, then those are mines and the tiles only A touches are safe.
+ *    If A's tiles are all shared with B and both need the same amount of mines, B's other tiles are safe.
+ * 3. The total amount of mines: if none are left, or as many as there are unknown tiles, every unknown tile is known.
+ *
+ * The frontier is kept between moves. Call update() with the tiles revealed by each move so that only
+ * those tiles are added to it, instead of scanning the whole board again.
+ */
+public class Solver {
+    private static final byte UNKNOWN = 0;
+    private static final byte SAFE = 1;
+    private static final byte MINE = 2;
+
+    private final BoardView view;
+    private final Topology topology;
+    private final int rows;
+    private final int cols;
+    private final int cells;
+
+    private final byte[] deduced;
+    private final boolean[] inFrontier;
+    private final int[] compared; // The comparison each tile was last part of, in the subset rules
+    private int comparison = 0;
+    private CellList frontier = new CellList();
+    private CellList nextFrontier = new CellList();
+    private CellList safeCells = new CellList();
+    private CellList mineCells = new CellList();
+    private CellList scratch = new CellList();
+
+    private int revealedCount = 0;
+    private int deducedMines = 0;
+    private int deducedSafeHidden = 0;
+
+    private final int[] unknownA = new int[Topology.MAX_NEIGHBORS];
+    private final int[] unknownB = new int[Topology.MAX_NEIGHBORS];
+
+    /**
+     * Creates a solver for a board, including any tiles that are already revealed.
+     * @param view What the player can see of the board.
+     */
+    public Solver(BoardView view) {
+        this.view = view;
+        this.topology = view.getTopology();
+        this.rows = view.getRows();
+        this.cols = view.getColumns();
+        this.cells = rows * cols;
+        this.deduced = new byte[cells];
+        this.inFrontier = new boolean[cells];
+        this.compared = new int[cells];
+        reset();
+    }
+
+    /**
+     * Forgets everything that was deduced and rebuilds the frontier by scanning the whole board.
+     * Needed when the board changes other than by revealing tiles, for example when a new game starts.
+     */
+    public void reset() {
+        Arrays.fill(deduced, UNKNOWN);
+        Arrays.fill(inFrontier, false);
+        frontier.clear();
+        safeCells.clear();
+        mineCells.clear();
+        revealedCount = 0;
+        deducedMines = 0;
+        deducedSafeHidden = 0;
+
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < cols; c++) {
+                if (view.isRevealed(r, c)) {
+                    onRevealed(r * cols + c);
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds newly revealed tiles to the frontier.
+     * @param revealedCells The indices (row * columns + column) of the tiles revealed by the last move.
+     */
+    public void update(CellList revealedCells) {
+        for (int i = 0; i < revealedCells.size(); i++) {
+            onRevealed(revealedCells.get(i));
+        }
+    }
+
+    private void onRevealed(int cell) {
+        if (deduced[cell] == SAFE) {
+            deducedSafeHidden--;
+        } else if (deduced[cell] == MINE) {
+            deducedMines--; // Only possible if the game was lost
+        }
+        deduced[cell] = SAFE;
+        revealedCount++;
+
+        if (!inFrontier[cell]) {
+            inFrontier[cell] = true;
+            frontier.add(cell);
+        }
+    }
+
+    /**
+     * Deduces as many safe tiles and mines as possible from the current board.
+     */
+    public void solve() {
+        boolean progress = true;
+        while (progress) {
+            progress = applySingleTileRules();
+            if (!progress) {
+                progress = applySubsetRules();
+            }
+            if (!progress) {
+                progress = applyMineCountRule();
+            }
+        }
+    }
+
+    /**
+     * @return The hidden tiles that are certainly safe. Only valid until the next call to solve() or getSafeCells().
+     */
+    public CellList getSafeCells() {
+        safeCells = withoutRevealed(safeCells);
+        return safeCells;
+    }
+
+    /**
+     * @return The hidden tiles that certainly have a mine. Only valid until the next call to solve() or getMineCells().
+     */
+    public CellList getMineCells() {
+        mineCells = withoutRevealed(mineCells);
+        return mineCells;
+    }
+
+    public boolean isSafe(int r, int c) {
+        return !view.isRevealed(r, c) && deduced[r * cols + c] == SAFE;
+    }
+
+    public boolean isMine(int r, int c) {
+        return deduced[r * cols + c] == MINE;
+    }
+
+    /**
+     * @return if every tile on the board is revealed or known.
+     */
+    public boolean isComplete() {
+        return cells - revealedCount - deducedSafeHidden - deducedMines == 0;
+    }
+
+    private CellList withoutRevealed(CellList list) {
+        scratch.clear();
+        for (int i = 0; i < list.size(); i++) {
+            int cell = list.get(i);
+            if (!view.isRevealed(cell)) {
+                scratch.add(cell);
+            }
+        }
+        CellList result = scratch;
+        scratch = list;
+        return result;
+    }
+
+    /**
+     * Applies the single tile rules to the whole frontier once, removing tiles that have no unknown neighbors left.
+     * @return if anything new was deduced.
+     */
+    private boolean applySingleTileRules() {
+        boolean progress = false;
+        nextFrontier.clear();
+        for (int i = 0; i < frontier.size(); i++) {
+            int cell = frontier.get(i);
+            int unknown = unknownNeighbors(cell, unknownA);
+            if (unknown == 0) {
+                inFrontier[cell] = false;
+                continue;
+            }
+            nextFrontier.add(cell);
+
+            int remaining = remainingMines(cell);
+            if (remaining == 0) {
+                markAll(unknownA, unknown, SAFE);
+                progress = true;
+            } else if (remaining == unknown) {
+                markAll(unknownA, unknown, MINE);
+                progress = true;
+            }
+        }
+
+        CellList swap = frontier;
+        frontier = nextFrontier;
+        nextFrontier = swap;
+        return progress;
+    }
+
+    /**
+     * Compares every constraint on the frontier with the other constraints that share an unknown tile with it.
+     * Two constraints that share none can't deduce anything the single tile rules haven't already.
+     * @return if anything new was deduced.
+     */
+    private boolean applySubsetRules() {
+        for (int i = 0; i < frontier.size(); i++) {
+            int a = frontier.get(i);
+            int unknownCountA = unknownNeighbors(a, unknownA);
+            if (unknownCountA == 0) {
+                continue;
+            }
+            int remainingA = remainingMines(a);
+
+            if (++comparison == 0) {
+                Arrays.fill(compared, 0); // Only after billions of comparisons
+                comparison = 1;
+            }
+            compared[a] = comparison;
+            for (int j = 0; j < unknownCountA; j++) {
+                int tile = unknownA[j];
+                for (int offset : topology.offsets(tile)) {
+                    if (compare(unknownCountA, remainingA, tile + offset)) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Applies the subset rules between the constraint whose unknown neighbors are in unknownA and another tile,
+     * unless it isn't on the frontier or was already compared with it.
+     * @return if anything new was deduced.
+     */
+    private boolean compare(int unknownCountA, int remainingA, int b) {
+        if (!inFrontier[b] || compared[b] == comparison) {
+            return false;
+        }
+        compared[b] = comparison;
+        int unknownCountB = unknownNeighbors(b, unknownB);
+        if (unknownCountB == 0) {
+            return false;
+        }
+        int remainingB = remainingMines(b);
+
+        int onlyA = countMissing(unknownA, unknownCountA, unknownB, unknownCountB);
+        int onlyB = countMissing(unknownB, unknownCountB, unknownA, unknownCountA);
+        if (onlyB == 0) {
+            return false;
+        }
+
+        if (remainingB - remainingA == onlyB) {
+            markMissing(unknownB, unknownCountB, unknownA, unknownCountA, MINE);
+            markMissing(unknownA, unknownCountA, unknownB, unknownCountB, SAFE);
+            return true;
+        }
+        if (onlyA == 0 && remainingB == remainingA) {
+            markMissing(unknownB, unknownCountB, unknownA, unknownCountA, SAFE);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Uses the total amount of mines when it decides every unknown tile.
+     * @return if anything new was deduced.
+     */
+    private boolean applyMineCountRule() {
+        int unknown = cells - revealedCount - deducedSafeHidden - deducedMines;
+        int remaining = view.getMines() - deducedMines;
+        if (unknown == 0 || (remaining != 0 && remaining != unknown)) {
+            return false;
+        }
+
+        byte value = remaining == 0 ? SAFE : MINE;
+        for (int cell = 0; cell < cells; cell++) {
+            if (deduced[cell] == UNKNOWN && !view.isRevealed(cell)) {
+                mark(cell, value);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Finds the hidden neighbors of a tile that aren't known to be safe or mines.
+     * @param unknown Where the indices of those neighbors are written.
+     * @return The amount of unknown neighbors.
+     */
+    private int unknownNeighbors(int cell, int[] unknown) {
+        int count = 0;
+        for (int offset : topology.offsets(cell)) {
+            int n = cell + offset;
+            if (deduced[n] == UNKNOWN && !view.isRevealed(n)) {
+                unknown[count++] = n;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return The number of a revealed tile minus the neighbors known to be mines.
+     */
+    private int remainingMines(int cell) {
+        int remaining = view.getNumber(cell / cols, cell % cols);
+        for (int offset : topology.offsets(cell)) {
+            if (deduced[cell + offset] == MINE) {
+                remaining--;
+            }
+        }
+        return remaining;
+    }
+
+    /**
+     * @return The amount of tiles in the first list that aren't in the second one.
+     */
+    private static int countMissing(int[] list, int size, int[] other, int otherSize) {
+        int missing = 0;
+        for (int i = 0; i < size; i++) {
+            if (!contains(other, otherSize, list[i])) {
+                missing++;
+            }
+        }
+        return missing;
+    }
+
+    /**
+     * Marks the tiles in the first list that aren't in the second one.
+     */
+    private void markMissing(int[] list, int size, int[] other, int otherSize, byte value) {
+        for (int i = 0; i < size; i++) {
+            if (!contains(other, otherSize, list[i])) {
+                mark(list[i], value);
+            }
+        }
+    }
+
+    private static boolean contains(int[] list, int size, int cell) {
+        for (int i = 0; i < size; i++) {
+            if (list[i] == cell) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void markAll(int[] list, int size, byte value) {
+        for (int i = 0; i < size; i++) {
+            mark(list[i], value);
+        }
+    }
+
+    private void mark(int cell, byte value) {
+        if (deduced[cell] != UNKNOWN) {
+            return;
+        }
+        deduced[cell] = value;
+        if (value == SAFE) {
+            deducedSafeHidden++;
+            safeCells.add(cell);
+        } else {
+            deducedMines++;
+            mineCells.add(cell);
+        }
+    }
+}
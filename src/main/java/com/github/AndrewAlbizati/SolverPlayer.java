@@ -0,0 +1,61 @@
+package com.github.AndrewAlbizati;
+
+import java.util.Random;
+
+/**
+ * Starts in the center, then reveals the tiles the Solver finds to be certainly safe.
+ * When there are none, it guesses a random tile that isn't known to have a mine.
+ */
+public class SolverPlayer implements Player {
+    private BoardView view;
+    private Random rand;
+    private Solver solver = null;
+    private boolean firstMove;
+
+    @Override
+    public String getName() {
+        return "solver";
+    }
+
+    @Override
+    public void newGame(BoardView view, Random rand) {
+        // Reuse the solver between games on the same board
+        if (solver == null || this.view != view) {
+            solver = new Solver(view);
+        } else {
+            solver.reset();
+        }
+        this.view = view;
+        this.rand = rand;
+        this.firstMove = true;
+    }
+
+    @Override
+    public Move nextMove() {
+        int cols = view.getColumns();
+        if (firstMove) {
+            firstMove = false;
+            return Move.reveal(view.getRows() / 2, cols / 2, false);
+        }
+
+        solver.solve();
+        CellList safeCells = solver.getSafeCells();
+        if (!safeCells.isEmpty()) {
+            int cell = safeCells.get(0);
+            return Move.reveal(cell / cols, cell % cols, false);
+        }
+
+        int r;
+        int c;
+        do {
+            r = rand.nextInt(view.getRows());
+            c = rand.nextInt(cols);
+        } while (view.isRevealed(r, c) || solver.isMine(r, c));
+        return Move.reveal(r, c, true);
+    }
+
+    @Override
+    public void onRevealed(CellList revealedCells) {
+        solver.update(revealedCells);
+    }
+}
@@ -0,0 +1,429 @@
+package com.github.AndrewAlbizati;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Plays Minesweeper on standard input and output, for the terminal or for bots driving the game through a pipe.
+ * Any amount of games can be played one after the other, and after every move only the tiles that changed are written.
+ *
+ * Commands, one per line, rows and columns start at 0 and every command but code can be shortened to its first letter:
+ *   reveal R C, flag R C (also removes a flag), chord R C
+ *   new [beginner|intermediate|expert|ROWS COLUMNS BOMBS]   starts a game, the same size as the last one by default
+ *   code CODE   starts a game on a board from a board code
+ *   board, help, quit
+ *
+ * With --topology every game is played on boards of that shape, hexagonal boards are drawn with every odd row
+ * moved right by half a tile.
+ *
+ * With --machine every command gets exactly one line back:
+ *   N rows columns bombs [torus|hex]           a new game, the shape is only given for boards that aren't square
+ *   D status flags count cell tile cell tile...  the tiles changed by a move, cell is row * columns + column
+ *   B rows columns tiles                       the whole board, one character per tile, row by row
+ *   E message                                  a command that wasn't understood
+ * Status is P (playing), W (won) or L (lost). Tiles are 0-8, F (flag), H (hidden) or M (bomb).
+ *
+ * Output is only flushed once every command that has arrived so far has been answered,
+ * so a bot sending many commands at once gets its answers in large writes.
+ *
+ * Usage: TerminalGame [--machine] [--difficulty NAME] [--seed N] [--topology square|torus|hex]
+ */
+public class TerminalGame {
+    private static final int MAX_SIZE = 5000;
+    private static final int MAX_TOKENS = 4;
+    private static final int TILES_PER_LINE = 12; // Tiles listed on one line in human-readable mode
+    private static final int WRITE_SIZE = 1 << 13; // Answers are collected until there are this many characters
+
+    private final BufferedReader in;
+    private final Writer out;
+    private final boolean machine;
+    private final Random seeds;
+    private final Topology.Shape shape;
+    private final StringBuilder line = new StringBuilder(1 << 12);
+
+    // Start and end of every token of the command being handled, so no strings are made for them
+    private final int[] tokenStart = new int[MAX_TOKENS];
+    private final int[] tokenEnd = new int[MAX_TOKENS];
+    private String command;
+    private int tokens;
+
+    private GameEngine engine;
+
+    /**
+     * @param in Where commands are read from.
+     * @param out Where answers are written to.
+     * @param machine If answers are written in the compact format meant for programs.
+     * @param difficulty The difficulty of the first game.
+     * @param seeds Gives the seed of every game.
+     */
+    public TerminalGame(BufferedReader in, Writer out, boolean machine, Difficulties difficulty, Random seeds) {
+        this(in, out, machine, difficulty, seeds, Topology.Shape.SQUARE);
+    }
+
+    /**
+     * @param in Where commands are read from.
+     * @param out Where answers are written to.
+     * @param machine If answers are written in the compact format meant for programs.
+     * @param difficulty The difficulty of the first game.
+     * @param seeds Gives the seed of every game.
+     * @param shape The shape of every board.
+     */
+    public TerminalGame(BufferedReader in, Writer out, boolean machine, Difficulties difficulty, Random seeds, Topology.Shape shape) {
+        this.in = in;
+        this.out = out;
+        this.machine = machine;
+        this.seeds = seeds;
+        this.shape = shape;
+        this.engine = new GameEngine(difficulty.rows, difficulty.columns, difficulty.mines, seeds.nextLong(), shape);
+    }
+
+    /**
+     * Handles commands until the input ends or a quit command is read.
+     */
+    public void run() throws IOException {
+        if (!machine) {
+            out.write("Minesweeper, type help for the commands.\n");
+        }
+        writeNewGame();
+
+        String next;
+        while ((next = in.readLine()) != null) {
+            if (tokenize(next)) {
+                if (isCommand("quit", "q")) {
+                    break;
+                }
+                handleCommand();
+            }
+
+            // Flushing after every answer would cost a system call per move when a bot sends many moves at once
+            if (!in.ready()) {
+                write();
+                out.flush();
+            } else if (line.length() >= WRITE_SIZE) {
+                write();
+            }
+        }
+        write();
+        out.flush();
+    }
+
+    private void write() throws IOException {
+        out.append(line);
+        line.setLength(0);
+    }
+
+    private void handleCommand() {
+        try {
+            if (isCommand("reveal", "r") || isCommand("flag", "f") || isCommand("chord", "c")) {
+                if (tokens != 3) {
+                    throw new IllegalArgumentException("Usage: " + command.substring(tokenStart[0], tokenEnd[0]) + " ROW COLUMN");
+                }
+                move(parseInt(1), parseInt(2));
+            } else if (isCommand("new", "n")) {
+                newGame();
+            } else if (isCommand("code", "code")) {
+                if (tokens != 2) {
+                    throw new IllegalArgumentException("Usage: code CODE");
+                }
+                BoardCodec.Layout layout = BoardCodec.fromCode(command.substring(tokenStart[1], tokenEnd[1]));
+                checkSize(layout.rows(), layout.cols());
+                Board board = engine.getBoard();
+                if (layout.rows() == board.getRows() && layout.cols() == board.getColumns() && layout.mines() == board.getMines()) {
+                    engine.newGame(layout.mineBits());
+                } else {
+                    // Codes only store the mines, so they can be played on a board of any shape
+                    Board codeBoard = new Board(layout.rows(), layout.cols(), layout.mines(), shape);
+                    codeBoard.setMines(layout.mineBits());
+                    engine = new GameEngine(codeBoard);
+                }
+                writeNewGame();
+            } else if (isCommand("board", "b")) {
+                writeBoard();
+            } else if (isCommand("help", "h")) {
+                writeHelp();
+            } else {
+                throw new IllegalArgumentException("Unknown command, type help for the commands");
+            }
+        } catch (IllegalArgumentException | IOException e) {
+            line.append(machine ? "E " : "Error: ").append(e.getMessage()).append('\n');
+        }
+    }
+
+    /**
+     * Splits a command into tokens separated by spaces.
+     * @return If the command has any tokens. False for a command with too many tokens, after writing an error.
+     */
+    private boolean tokenize(String command) {
+        this.command = command;
+        tokens = 0;
+        int i = 0;
+        int length = command.length();
+        while (true) {
+            while (i < length && Character.isWhitespace(command.charAt(i))) {
+                i++;
+            }
+            if (i == length) {
+                return tokens > 0;
+            }
+            if (tokens == MAX_TOKENS) {
+                line.append(machine ? "E " : "Error: ").append("Too many arguments\n");
+                return false;
+            }
+            tokenStart[tokens] = i;
+            while (i < length && !Character.isWhitespace(command.charAt(i))) {
+                i++;
+            }
+            tokenEnd[tokens++] = i;
+        }
+    }
+
+    private boolean isCommand(String name, String shortName) {
+        int length = tokenEnd[0] - tokenStart[0];
+        return length == name.length() && command.regionMatches(true, tokenStart[0], name, 0, length)
+                || length == shortName.length() && command.regionMatches(true, tokenStart[0], shortName, 0, length);
+    }
+
+    private int parseInt(int token) {
+        try {
+            return Integer.parseInt(command, tokenStart[token], tokenEnd[token], 10);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Not a number: " + command.substring(tokenStart[token], tokenEnd[token]));
+        }
+    }
+
+    private static void checkSize(int rows, int cols) {
+        if (rows > MAX_SIZE || cols > MAX_SIZE) {
+            throw new IllegalArgumentException("Boards can be at most " + MAX_SIZE + " x " + MAX_SIZE);
+        }
+    }
+
+    private void newGame() {
+        Board board = engine.getBoard();
+        int rows = board.getRows();
+        int cols = board.getColumns();
+        int mines = board.getMines();
+        if (tokens == 2) {
+            Difficulties difficulty;
+            try {
+                difficulty = Difficulties.valueOf(command.substring(tokenStart[1], tokenEnd[1]).toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown difficulty, use beginner, intermediate or expert");
+            }
+            rows = difficulty.rows;
+            cols = difficulty.columns;
+            mines = difficulty.mines;
+        } else if (tokens == 4) {
+            rows = parseInt(1);
+            cols = parseInt(2);
+            mines = parseInt(3);
+            checkSize(rows, cols);
+            Board.validate(rows, cols, mines);
+        } else if (tokens != 1) {
+            throw new IllegalArgumentException("Usage: new [beginner|intermediate|expert|ROWS COLUMNS BOMBS]");
+        }
+
+        // Reuse the board when the size doesn't change
+        if (rows == board.getRows() && cols == board.getColumns() && mines == board.getMines()) {
+            engine.newGame(seeds.nextLong());
+        } else {
+            engine = new GameEngine(rows, cols, mines, seeds.nextLong(), shape);
+        }
+        writeNewGame();
+    }
+
+    private void move(int r, int c) {
+        Board board = engine.getBoard();
+        if (r < 0 || r >= board.getRows() || c < 0 || c >= board.getColumns()) {
+            throw new IllegalArgumentException("The board has rows 0 - " + (board.getRows() - 1) + " and columns 0 - " + (board.getColumns() - 1));
+        }
+
+        boolean changed;
+        if (isCommand("reveal", "r")) {
+            changed = engine.leftClick(r, c);
+        } else if (isCommand("flag", "f")) {
+            changed = engine.rightClick(r, c);
+        } else {
+            changed = engine.chord(r, c);
+        }
+        CellList cells = changed ? engine.getChangedCells() : null;
+        int count = changed ? cells.size() : 0;
+
+        if (machine) {
+            char status = engine.isWon() ? 'W' : engine.isLost() ? 'L' : 'P';
+            line.append("D ").append(status).append(' ').append(engine.getFlagsRemaining()).append(' ').append(count);
+            for (int i = 0; i < count; i++) {
+                int cell = cells.get(i);
+                line.append(' ').append(cell).append(' ').append(tile(board, board.getRow(cell), board.getColumn(cell), false));
+            }
+            line.append('\n');
+            return;
+        }
+
+        if (!changed) {
+            line.append("Nothing changed.\n");
+            return;
+        }
+        for (int i = 0; i < count; i++) {
+            int cell = cells.get(i);
+            int row = board.getRow(cell);
+            int col = board.getColumn(cell);
+            line.append(i % TILES_PER_LINE == 0 ? "" : "  ").append(row).append(',').append(col).append('=').append(tile(board, row, col, true));
+            if (i % TILES_PER_LINE == TILES_PER_LINE - 1 || i == count - 1) {
+                line.append('\n');
+            }
+        }
+        if (engine.isWon()) {
+            line.append("You won in ").append(engine.getClicks()).append(" clicks! Type new to play again.\n");
+        } else if (engine.isLost()) {
+            line.append("You hit a bomb! Type board to see the bombs, new to play again.\n");
+        } else {
+            line.append(engine.getFlagsRemaining()).append(" flags left.\n");
+        }
+    }
+
+    /**
+     * @param human If the tile is written for a person, hidden tiles and blank tiles are then drawn like on a board.
+     * @return The character of a tile.
+     */
+    private char tile(Board board, int r, int c, boolean human) {
+        if (board.isRevealed(r, c)) {
+            if (board.hasMine(r, c)) {
+                return human ? '*' : 'M';
+            }
+            int number = board.getNumber(r, c);
+            return human && number == 0 ? '.' : (char) ('0' + number);
+        }
+        if (board.isFlagged(r, c)) {
+            return 'F';
+        }
+        if (human && engine.isLost() && board.hasMine(r, c)) {
+            return '*'; // The bombs are shown once the game is lost
+        }
+        return human ? '#' : 'H';
+    }
+
+    private void writeNewGame() {
+        Board board = engine.getBoard();
+        if (machine) {
+            line.append("N ").append(board.getRows()).append(' ').append(board.getColumns()).append(' ').append(board.getMines());
+            if (shape != Topology.Shape.SQUARE) {
+                line.append(' ').append(shape.name().toLowerCase(Locale.ROOT));
+            }
+            line.append('\n');
+        } else {
+            line.append("New ").append(board.getRows()).append(" x ").append(board.getColumns()).append(" game with ")
+                    .append(board.getMines()).append(" bombs");
+            if (shape != Topology.Shape.SQUARE) {
+                line.append(" on a ").append(shape == Topology.Shape.HEX ? "hexagonal" : "torus").append(" board");
+            }
+            line.append(".\n");
+        }
+    }
+
+    private void writeBoard() {
+        Board board = engine.getBoard();
+        int rows = board.getRows();
+        int cols = board.getColumns();
+        if (machine) {
+            line.append("B ").append(rows).append(' ').append(cols).append(' ');
+            for (int r = 0; r < rows; r++) {
+                for (int c = 0; c < cols; c++) {
+                    line.append(tile(board, r, c, false));
+                }
+            }
+            line.append('\n');
+            return;
+        }
+
+        // Column numbers above the board, written vertically so wide boards line up.
+        // Hexagonal boards have a space after every tile so odd rows can be moved right by half a tile
+        boolean hex = shape == Topology.Shape.HEX;
+        int width = String.valueOf(rows - 1).length();
+        for (int digit = String.valueOf(cols - 1).length() - 1; digit >= 0; digit--) {
+            int divisor = (int) Math.pow(10, digit);
+            line.append(" ".repeat(width + 1));
+            for (int c = 0; c < cols; c++) {
+                line.append(c >= divisor || digit == 0 ? (char) ('0' + c / divisor % 10) : ' ');
+                if (hex) {
+                    line.append(' ');
+                }
+            }
+            line.append('\n');
+        }
+        for (int r = 0; r < rows; r++) {
+            String number = String.valueOf(r);
+            line.append(" ".repeat(width - number.length())).append(number).append(' ');
+            if (hex && (r & 1) == 1) {
+                line.append(' ');
+            }
+            for (int c = 0; c < cols; c++) {
+                line.append(tile(board, r, c, true));
+                if (hex) {
+                    line.append(' ');
+                }
+            }
+            line.append('\n');
+        }
+        line.append(engine.getFlagsRemaining()).append(" flags left.\n");
+    }
+
+    private void writeHelp() {
+        if (machine) {
+            line.append("E Commands: reveal R C, flag R C, chord R C, new [DIFFICULTY|ROWS COLUMNS BOMBS], code CODE, board, quit\n");
+            return;
+        }
+        line.append("""
+                Commands (rows and columns start at 0, every command but code can be shortened to its first letter):
+                  reveal ROW COLUMN   reveals a tile
+                  flag ROW COLUMN     places or removes a flag
+                  chord ROW COLUMN    reveals the tiles around a number that has as many flags around it
+                  new [beginner|intermediate|expert|ROWS COLUMNS BOMBS]
+                                      starts a new game, the same size as the last one by default
+                  code CODE           starts a game on the board of a board code
+                  board               shows the whole board
+                  quit                stops the game
+                Tiles: # hidden, F flag, . blank, 1-8 bombs next to the tile, * bomb
+                """);
+    }
+
+    public static void main(String[] args) throws IOException {
+        boolean machine = false;
+        String difficultyName = "BEGINNER";
+        Random seeds = new Random();
+        Topology.Shape shape = Topology.Shape.SQUARE;
+
+        try {
+            for (int i = 0; i < args.length; i++) {
+                String value = i + 1 < args.length ? args[i + 1] : "";
+                switch (args[i]) {
+                    case "--machine" -> {
+                        machine = true;
+                        continue;
+                    }
+                    case "--difficulty" -> difficultyName = value.toUpperCase(Locale.ROOT);
+                    case "--seed" -> seeds = new Random(Long.parseLong(value));
+                    case "--topology" -> shape = Topology.Shape.parse(value);
+                    default -> throw new IllegalArgumentException("Unknown option: " + args[i]);
+                }
+                i++;
+            }
+            Difficulties.valueOf(difficultyName);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println("Usage: TerminalGame [--machine] [--difficulty NAME] [--seed N] [--topology square|torus|hex]");
+            System.exit(1);
+            return;
+        }
+
+        BufferedReader in = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.US_ASCII), 1 << 16);
+        Writer out = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.US_ASCII), 1 << 16);
+        new TerminalGame(in, out, machine, Difficulties.valueOf(difficultyName), seeds, shape).run();
+    }
+}
@@ -0,0 +1,111 @@
+package com.github.AndrewAlbizati;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+
+/**
+ * Pre-rendered images of every tile state, shared by all boards.
+ * Painting a tile is a single image copy instead of drawing borders and text each time.
+ */
+public final class TileGlyphs {
+    public static final int TILE_SIZE = 32;
+
+    public static final Color HIDDEN_COLOR = new Color(198, 198, 198);
+    public static final Color REVEALED_COLOR = new Color(230, 230, 230);
+    public static final Color[] NUMBER_COLORS = {
+            REVEALED_COLOR,
+            new Color(60, 0, 247),
+            new Color(9, 131, 8),
+            new Color(245, 0, 18),
+            new Color(26, 0, 127),
+            new Color(124, 0, 6),
+            new Color(29, 128, 128),
+            new Color(0, 0, 0),
+            new Color(128, 128, 128)
+    };
+
+    private static final BufferedImage HIDDEN_GLYPH = createGlyph(HIDDEN_COLOR, true, null, null);
+    private static final BufferedImage FLAG_GLYPH = createGlyph(HIDDEN_COLOR, true, "F", Color.RED);
+    private static final BufferedImage BOMB_GLYPH = createBombGlyph();
+    private static final BufferedImage[] NUMBER_GLYPHS = new BufferedImage[9];
+    static {
+        NUMBER_GLYPHS[0] = createGlyph(REVEALED_COLOR, false, null, null);
+        for (int i = 1; i < NUMBER_GLYPHS.length; i++) {
+            NUMBER_GLYPHS[i] = createGlyph(NUMBER_COLORS[i], false, String.valueOf(i), Color.WHITE);
+        }
+    }
+
+    private TileGlyphs() {
+    }
+
+    public static BufferedImage hidden() {
+        return HIDDEN_GLYPH;
+    }
+
+    public static BufferedImage flag() {
+        return FLAG_GLYPH;
+    }
+
+    public static BufferedImage bomb() {
+        return BOMB_GLYPH;
+    }
+
+    /**
+     * @param number The amount of adjacent mines (0 - 8).
+     * @return The image of a revealed tile showing that number.
+     */
+    public static BufferedImage number(int number) {
+        return NUMBER_GLYPHS[number];
+    }
+
+    /**
+     * Draws a tile once so that it can be copied whenever a tile in that state is painted.
+     * @param background The color of the tile.
+     * @param raised If the tile is drawn with a raised border (hidden tiles).
+     * @param text The text in the center of the tile, can be null.
+     * @param textColor The color of the text.
+     */
+    private static BufferedImage createGlyph(Color background, boolean raised, String text, Color textColor) {
+        BufferedImage image = new BufferedImage(TILE_SIZE, TILE_SIZE, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+
+        g.setColor(background);
+        g.fillRect(0, 0, TILE_SIZE, TILE_SIZE);
+        if (raised) {
+            g.fill3DRect(0, 0, TILE_SIZE, TILE_SIZE, true);
+        } else {
+            g.setColor(Color.GRAY);
+            g.drawRect(0, 0, TILE_SIZE - 1, TILE_SIZE - 1);
+        }
+
+        if (text != null) {
+            g.setFont(Resources.TILE_FONT);
+            FontMetrics metrics = g.getFontMetrics();
+            int x = (TILE_SIZE - metrics.stringWidth(text)) / 2;
+            int y = (TILE_SIZE - metrics.getHeight()) / 2 + metrics.getAscent();
+            g.setColor(textColor);
+            g.drawString(text, x, y);
+        }
+
+        g.dispose();
+        return image;
+    }
+
+    /**
+     * Draws the revealed bomb tile using bomb.png, falls back to a "B" if the image can't be loaded.
+     */
+    private static BufferedImage createBombGlyph() {
+        Image bomb = Resources.bomb();
+        if (bomb == null) {
+            return createGlyph(REVEALED_COLOR, false, "B", Color.BLACK);
+        }
+
+        BufferedImage image = createGlyph(REVEALED_COLOR, false, null, null);
+        Graphics2D g = image.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        g.drawImage(bomb, 3, 3, TILE_SIZE - 6, TILE_SIZE - 6, null);
+        g.dispose();
+        return image;
+    }
+}
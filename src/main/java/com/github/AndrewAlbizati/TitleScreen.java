@@ -1,28 +1,26 @@
 package com.github.AndrewAlbizati;
 
-import javax.imageio.ImageIO;
 import javax.swing.*;
+import javax.swing.filechooser.FileNameExtensionFilter;
 import java.awt.*;
 import java.io.*;
-import java.util.Properties;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Random;
 
 public class TitleScreen extends JFrame {
+    private static final int MAX_CUSTOM_SIZE = 5000;
+
+    private static TitleScreen instance = null; // Only used on the Event Dispatch Thread
+
+    private final Map<Difficulties, JLabel> lowestTimeLabels = new EnumMap<>(Difficulties.class);
+    private final JButton resumeButton;
+
     public static void main(String[] args) {
-        // Load the lowest times
-        File f1 = new File("minesweeper-lowest-times.properties");
-        try {
-            // Create file if nonexistent
-            if (!f1.exists()) {
-                if (!f1.createNewFile()) {
-                    throw new IOException("Error while creating minesweeper-lowest-times.properties");
-                }
-                FileWriter fw = new FileWriter(f1);
-                fw.append("beginner=\nintermediate=\nexpert=");
-                fw.close();
-            }
-        } catch (IOException e) {
-            e.printStackTrace(); // Ignoring the lowest times
-        }
+        // Start reading the history of games while the window is being created
+        GameHistory.getInstance().load();
 
         // Make UI uniform across platforms
         try {
@@ -31,65 +29,56 @@ public class TitleScreen extends JFrame {
             e.printStackTrace(); // Ignore exception, won't cause any serious issues
         }
 
-        TitleScreen titleScreen = new TitleScreen();
-        titleScreen.setVisible(true);
+        SwingUtilities.invokeLater(TitleScreen::showTitleScreen);
     }
 
     /**
-     * Show the title screen with the different difficulty options.
-     * Also shows the lowest times for each difficulty if applicable.
+     * Shows the title screen with up to date lowest times. The same window is reused every time.
      */
-    public TitleScreen() {
-        int beginnerLowestTime = -1;
-        int intermediateLowestTime = -1;
-        int expertLowestTime = -1;
-
-        try {
-            Properties prop = new Properties();
-            FileInputStream fileInputStream = new FileInputStream("minesweeper-lowest-times.properties");
-            prop.load(fileInputStream);
-
-            if (!prop.getProperty("beginner").isEmpty()) {
-                beginnerLowestTime = Integer.parseInt(prop.getProperty("beginner"));
-            }
-            if (!prop.getProperty("intermediate").isEmpty()) {
-                intermediateLowestTime = Integer.parseInt(prop.getProperty("intermediate"));
-            }
-            if (!prop.getProperty("expert").isEmpty()) {
-                expertLowestTime = Integer.parseInt(prop.getProperty("expert"));
-            }
-
-            fileInputStream.close();
-        } catch (IOException e) {
-            e.printStackTrace();
+    public static void showTitleScreen() {
+        if (instance == null) {
+            instance = new TitleScreen();
+        } else {
+            instance.refresh();
         }
+        instance.setVisible(true);
+    }
 
+    /**
+     * Show the title screen with the different difficulty options.
+     * Also shows the lowest times for each difficulty if applicable.
+     */
+    private TitleScreen() {
         this.setTitle("Minesweeper (Title Screen)");
-        this.setLayout(new GridLayout(3, 3));
-        this.setSize(500,500);
+        this.setLayout(new GridLayout(3, 5));
+        this.setSize(800,500);
         this.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
 
-        try {
-            InputStream inputStream = Game.class.getResourceAsStream("/bomb.png");
-            if (inputStream == null) {
-                throw new NullPointerException("bomb.png not found");
-            }
-            Image image = ImageIO.read(inputStream);
-            this.setIconImage(image);
-
-        } catch (NullPointerException | IOException e) {
-            e.printStackTrace(); // Ignore, use default Java logo for icon
-        }
+        Resources.setIcon(this);
 
         // Add first row (title)
         this.add(new JLabel("")); // blank label to take up space on grid
 
         JLabel titleLabel = new JLabel("Minesweeper");
-        titleLabel.setFont(new Font("Verdana", Font.PLAIN, 24));
+        titleLabel.setFont(Resources.TITLE_FONT);
         this.add(titleLabel);
 
         this.add(new JLabel("")); // blank label to take up space on grid
 
+        JCheckBox noGuessCheckBox = new JCheckBox("No guessing");
+        noGuessCheckBox.setToolTipText("Only boards that can be solved without guessing");
+        noGuessCheckBox.addActionListener(e -> {
+            if (noGuessCheckBox.isSelected()) {
+                BoardPool.getInstance().start(); // Have boards ready before a difficulty is chosen
+            }
+        });
+        this.add(noGuessCheckBox);
+
+        // Replays button
+        JButton replaysButton = new JButton("Replays...");
+        replaysButton.addActionListener(e -> openReplay());
+        this.add(replaysButton);
+
 
         // Add second row (buttons)
 
@@ -97,18 +86,14 @@ public class TitleScreen extends JFrame {
         JButton beginnerButton = new JButton("Beginner (" + Difficulties.BEGINNER.rows + " x " + Difficulties.BEGINNER.columns + ")");
         this.add(beginnerButton);
         beginnerButton.addActionListener(e -> {
-            Game game = new Game(Difficulties.BEGINNER);
-            game.start();
-            this.setVisible(false);
+            startGame(Difficulties.BEGINNER, noGuessCheckBox.isSelected());
         });
 
 
         // Intermediate button
         JButton intermediateButton = new JButton("Intermediate (" + Difficulties.INTERMEDIATE.rows + " x " + Difficulties.INTERMEDIATE.columns + ")");
         intermediateButton.addActionListener(e -> {
-            Game game = new Game(Difficulties.INTERMEDIATE);
-            game.start();
-            this.setVisible(false);
+            startGame(Difficulties.INTERMEDIATE, noGuessCheckBox.isSelected());
         });
         this.add(intermediateButton);
 
@@ -116,43 +101,191 @@ public class TitleScreen extends JFrame {
         // Expert button
         JButton expertButton = new JButton("Expert (" + Difficulties.EXPERT.rows + " x " + Difficulties.EXPERT.columns + ")");
         expertButton.addActionListener(e -> {
-            Game game = new Game(Difficulties.EXPERT);
+            startGame(Difficulties.EXPERT, noGuessCheckBox.isSelected());
+        });
+        this.add(expertButton);
+
+
+        // Custom button
+        JButton customButton = new JButton("Custom...");
+        customButton.addActionListener(e -> {
+            JSpinner rowsSpinner = new JSpinner(new SpinnerNumberModel(100, 3, MAX_CUSTOM_SIZE, 1));
+            JSpinner columnsSpinner = new JSpinner(new SpinnerNumberModel(100, 3, MAX_CUSTOM_SIZE, 1));
+            JSpinner minesSpinner = new JSpinner(new SpinnerNumberModel(1500, 1, Integer.MAX_VALUE, 1));
+
+            JPanel customPanel = new JPanel(new GridLayout(3, 2));
+            customPanel.add(new JLabel("Rows"));
+            customPanel.add(rowsSpinner);
+            customPanel.add(new JLabel("Columns"));
+            customPanel.add(columnsSpinner);
+            customPanel.add(new JLabel("Bombs"));
+            customPanel.add(minesSpinner);
+
+            int a = JOptionPane.showConfirmDialog(this, customPanel, "Custom board", JOptionPane.OK_CANCEL_OPTION);
+            if (a != JOptionPane.OK_OPTION) {
+                return;
+            }
+
+            int rows = (int) rowsSpinner.getValue();
+            int columns = (int) columnsSpinner.getValue();
+            int mines = (int) minesSpinner.getValue();
+
+            // The same limits as every other way of starting a game, the first tile revealed is kept free of bombs
+            try {
+                Board.validate(rows, columns, mines);
+            } catch (IllegalArgumentException exception) {
+                JOptionPane.showMessageDialog(this, exception.getMessage(), "Custom board", JOptionPane.ERROR_MESSAGE);
+                return;
+            }
+
+            Game game = new Game(rows, columns, mines);
             game.start();
             this.setVisible(false);
         });
-        this.add(expertButton);
+        this.add(customButton);
+
+
+        // Endless button
+        JButton endlessButton = new JButton("Endless");
+        endlessButton.addActionListener(e -> {
+            try {
+                EndlessGame game = new EndlessGame(new Random().nextLong(), EndlessGame.DEFAULT_DENSITY);
+                game.start();
+                this.setVisible(false);
+            } catch (IOException exception) {
+                exception.printStackTrace();
+                JOptionPane.showMessageDialog(this, "Could not start an endless game: " + exception.getMessage(), "Endless", JOptionPane.ERROR_MESSAGE);
+            }
+        });
+        this.add(endlessButton);
 
 
         // Display the lowest times
-        Font timeFont = new Font("Verdana", Font.PLAIN, 12);
+        for (Difficulties difficulty : Difficulties.values()) {
+            JLabel lowestTimeLabel = new JLabel("", SwingConstants.CENTER);
+            lowestTimeLabel.setFont(Resources.SMALL_FONT);
+            lowestTimeLabels.put(difficulty, lowestTimeLabel);
+            this.add(lowestTimeLabel);
+        }
 
-        // Beginner lowest time
-        if (beginnerLowestTime != -1) {
-            JLabel beginnerLowestTimeLabel = new JLabel("Lowest time: " + beginnerLowestTime, SwingConstants.CENTER);
-            beginnerLowestTimeLabel.setFont(timeFont);
-            this.add(beginnerLowestTimeLabel);
-        } else {
-            this.add(new JLabel("")); // blank label to take up space on grid
+        // Resume button, below the custom button since custom boards have no lowest time
+        resumeButton = new JButton("Resume game");
+        resumeButton.addActionListener(e -> resumeGame());
+        this.add(resumeButton);
+
+        // Board code button, below the endless button since endless games have no lowest time
+        JButton codeButton = new JButton("Board code...");
+        codeButton.addActionListener(e -> playCode());
+        this.add(codeButton);
+
+        refresh();
+    }
+
+    /**
+     * Updates the lowest times and the resume button, which can change while a game is played.
+     */
+    private void refresh() {
+        resumeButton.setEnabled(Files.exists(Path.of(SavedGame.FILE_NAME)));
+
+        // The history is read in the background, the labels are filled in once it includes the last game played
+        GameHistory.getInstance().loadLatest().thenAccept(history -> SwingUtilities.invokeLater(() -> {
+            for (Difficulties difficulty : Difficulties.values()) {
+                long lowestTime = history.getBestMillis(difficulty);
+                if (lowestTime != -1) {
+                    lowestTimeLabels.get(difficulty).setText("Lowest time: " + GameClock.format(lowestTime));
+                    lowestTimeLabels.get(difficulty).setToolTipText(history.getWins(difficulty) + " of " + history.getGames(difficulty) + " games won, median time " + GameClock.format(history.getPercentileMillis(difficulty, 50)));
+                }
+            }
+        }));
+    }
+
+    /**
+     * Asks for a board code and starts a game on that board.
+     */
+    private void playCode() {
+        String code = JOptionPane.showInputDialog(this, "Paste the code of a board:", "Board code", JOptionPane.PLAIN_MESSAGE);
+        if (code == null || code.isBlank()) {
+            return;
+        }
+
+        BoardCodec.Layout layout;
+        try {
+            layout = BoardCodec.fromCode(code);
+        } catch (IOException e) {
+            JOptionPane.showMessageDialog(this, "Not a valid board code: " + e.getMessage(), "Board code", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        if (layout.rows() > MAX_CUSTOM_SIZE || layout.cols() > MAX_CUSTOM_SIZE) {
+            JOptionPane.showMessageDialog(this, "Boards can be at most " + MAX_CUSTOM_SIZE + " x " + MAX_CUSTOM_SIZE + ".", "Board code", JOptionPane.ERROR_MESSAGE);
+            return;
         }
 
+        Game game = new Game(layout);
+        game.start();
+        this.setVisible(false);
+    }
 
-        // Intermediate lowest time
-        if (intermediateLowestTime != -1) {
-            JLabel intermediateLowestTimeLabel = new JLabel("Lowest time: " + intermediateLowestTime, SwingConstants.CENTER);
-            intermediateLowestTimeLabel.setFont(timeFont);
-            this.add(intermediateLowestTimeLabel);
-        } else {
-            this.add(new JLabel("")); // blank label to take up space on grid
+    /**
+     * Continues the game that was saved when its window was closed.
+     */
+    private void resumeGame() {
+        try {
+            Game game = new Game(SavedGame.read(Path.of(SavedGame.FILE_NAME)));
+            game.start();
+            this.setVisible(false);
+        } catch (IOException | IllegalArgumentException e) {
+            e.printStackTrace();
+            JOptionPane.showMessageDialog(this, "Could not resume the game: " + e.getMessage(), "Resume game", JOptionPane.ERROR_MESSAGE);
         }
+    }
 
+    /**
+     * Lets the player choose a saved replay and shows it.
+     */
+    private void openReplay() {
+        JFileChooser fileChooser = new JFileChooser(new File(Replay.DIRECTORY));
+        fileChooser.setFileFilter(new FileNameExtensionFilter("Minesweeper replays", Replay.EXTENSION.substring(1)));
+        if (fileChooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
 
-        // Expert lowest time
-        if (expertLowestTime != -1) {
-            JLabel expertLowestTimeLabel = new JLabel("Lowest time: " + expertLowestTime, SwingConstants.CENTER);
-            expertLowestTimeLabel.setFont(timeFont);
-            this.add(expertLowestTimeLabel);
-        } else {
-            this.add(new JLabel("")); // blank label to take up space on grid
+        try {
+            Replay replay = Replay.read(fileChooser.getSelectedFile().toPath());
+            new ReplayViewer(replay).setVisible(true);
+        } catch (IOException | IllegalArgumentException | IllegalStateException e) {
+            e.printStackTrace();
+            JOptionPane.showMessageDialog(this, "Could not open the replay: " + e.getMessage(), "Replays", JOptionPane.ERROR_MESSAGE);
         }
     }
+
+    /**
+     * Starts a game and hides the title screen.
+     * @param difficulty The difficulty of the game.
+     * @param noGuess If the board has to be solvable without guessing.
+     */
+    private void startGame(Difficulties difficulty, boolean noGuess) {
+        if (!noGuess) {
+            Game game = Game.obtain(difficulty);
+            game.start();
+            this.setVisible(false);
+            return;
+        }
+
+        // The board is generated on another thread if the pool is empty, the title screen waits without freezing
+        this.setEnabled(false);
+        this.setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+        BoardPool.getInstance().take(difficulty).whenComplete((board, exception) -> SwingUtilities.invokeLater(() -> {
+            this.setEnabled(true);
+            this.setCursor(Cursor.getDefaultCursor());
+            if (exception != null) {
+                exception.printStackTrace();
+                JOptionPane.showMessageDialog(this, "Could not generate a board: " + exception.getMessage(), "No guessing", JOptionPane.ERROR_MESSAGE);
+                return;
+            }
+
+            Game game = Game.obtain(difficulty, board);
+            game.start();
+            this.setVisible(false);
+        }));
+    }
 }
@@ -0,0 +1,175 @@
+package com.github.AndrewAlbizati;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Which tiles of a board are next to each other. The neighbors of every tile are worked out once, as the differences
+ * between their indices and the tile's index, so code that visits the neighbors of a tile loops over an array
+ * instead of checking the edges of the board for each one:
+ *
+ *     for (int offset : topology.offsets(cell)) {
+ *         int neighbor = cell + offset;
+ *     }
+ *
+ * Only the tiles on the edges have different neighbors than the ones inside, so the tiles are split into at most
+ * 18 classes (the first, a middle, or the last row, times the row being even or odd, times the first, a middle,
+ * or the last column) that share one array of offsets. A byte per tile tells its class, which keeps the table
+ * small on boards of millions of tiles, where one index per neighbor would take 32 bytes per tile.
+ *
+ * Topologies are immutable and shared between boards of the same shape and size.
+ */
+public final class Topology {
+    public static final int MAX_NEIGHBORS = 8;
+    private static final int CACHE_SIZE = 8;
+
+    /**
+     * The shapes of boards.
+     */
+    public enum Shape {
+        /** The 8 tiles around a tile, fewer on the edges of the board. */
+        SQUARE,
+        /** Like SQUARE, but the left edge is next to the right edge and the top edge is next to the bottom one. */
+        TORUS,
+        /** Hexagons with every odd row moved right by half a tile: 2 tiles beside a tile and 2 above and below it. */
+        HEX;
+
+        /**
+         * @param name The name of a shape, in any case.
+         * @return The shape.
+         * @throws IllegalArgumentException If there is no shape with that name.
+         */
+        public static Shape parse(String name) {
+            try {
+                return valueOf(name.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown topology: " + name);
+            }
+        }
+    }
+
+    private record Key(Shape shape, int rows, int cols) {
+    }
+
+    // The most recently used topologies, a game usually asks for the same one many times
+    private static final Map<Key, Topology> CACHE = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, Topology> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+
+    private final Shape shape;
+    private final int rows;
+    private final int cols;
+    private final byte[] classes;
+    private final int[][] offsets = new int[18][];
+
+    private Topology(Shape shape, int rows, int cols) {
+        this.shape = shape;
+        this.rows = rows;
+        this.cols = cols;
+        this.classes = new byte[rows * cols];
+
+        for (int r = 0; r < rows; r++) {
+            int rowClass = r == 0 ? 0 : r == rows - 1 ? 2 : 1;
+            int row = (rowClass * 2 + (shape == Shape.HEX ? r & 1 : 0)) * 3;
+            for (int c = 0; c < cols; c++) {
+                int tileClass = row + (c == 0 ? 0 : c == cols - 1 ? 2 : 1);
+                if (offsets[tileClass] == null) {
+                    offsets[tileClass] = calculateOffsets(r, c);
+                }
+                classes[r * cols + c] = (byte) tileClass;
+            }
+        }
+    }
+
+    /**
+     * @param shape The shape of the board.
+     * @param rows The amount of rows on the board.
+     * @param cols The amount of columns on the board.
+     * @return The neighbors of every tile of a board of that shape and size.
+     */
+    public static Topology of(Shape shape, int rows, int cols) {
+        Key key = new Key(shape, rows, cols);
+        synchronized (CACHE) {
+            Topology topology = CACHE.get(key);
+            if (topology == null) {
+                topology = new Topology(shape, rows, cols);
+                CACHE.put(key, topology);
+            }
+            return topology;
+        }
+    }
+
+    /**
+     * Finds the neighbors of one tile, checking the edges of the board.
+     * @return The differences between the neighbors' indices and the tile's index, in increasing order.
+     */
+    private int[] calculateOffsets(int r, int c) {
+        int[] rowOffsets;
+        int[] colOffsets;
+        if (shape == Shape.HEX) {
+            // Rows -1 and 1 touch the tile and the one on its left on even rows, the one on its right on odd rows
+            rowOffsets = new int[] {-1, -1, 0, 0, 1, 1};
+            colOffsets = (r & 1) == 0 ? new int[] {-1, 0, -1, 1, -1, 0} : new int[] {0, 1, -1, 1, 0, 1};
+        } else {
+            rowOffsets = new int[] {-1, -1, -1, 0, 0, 1, 1, 1};
+            colOffsets = new int[] {-1, 0, 1, -1, 1, -1, 0, 1};
+        }
+
+        int cell = r * cols + c;
+        int[] result = new int[rowOffsets.length];
+        int count = 0;
+        for (int i = 0; i < rowOffsets.length; i++) {
+            int nr = r + rowOffsets[i];
+            int nc = c + colOffsets[i];
+            if (shape == Shape.TORUS) {
+                nr = Math.floorMod(nr, rows);
+                nc = Math.floorMod(nc, cols);
+            } else if (nr < 0 || nr >= rows || nc < 0 || nc >= cols) {
+                continue;
+            }
+            int offset = nr * cols + nc - cell;
+            // A torus less than 3 tiles wide reaches the same tile from both sides, or the tile itself
+            if (offset != 0 && !contains(result, count, offset)) {
+                result[count++] = offset;
+            }
+        }
+        result = Arrays.copyOf(result, count);
+        Arrays.sort(result);
+        return result;
+    }
+
+    private static boolean contains(int[] list, int size, int value) {
+        for (int i = 0; i < size; i++) {
+            if (list[i] == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public Shape getShape() {
+        return shape;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getColumns() {
+        return cols;
+    }
+
+    /**
+     * @param cell The index (row * columns + column) of a tile.
+     * @return The differences between the indices of the tile's neighbors and its own index, in increasing order.
+     *         The array is shared and must not be changed.
+     */
+    public int[] offsets(int cell) {
+        return offsets[classes[cell]];
+    }
+}
@@ -0,0 +1,125 @@
+package com.github.AndrewAlbizati;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Plays several players against each other on the same games, for every difficulty, and compares how often
+ * they win and how fast they play. Every player plays the games with the same numbers, so with the same master seed
+ * they get the same boards: a game's mines only depend on its seed and the first tile revealed, which is the center
+ * for every player here. The games are spread over every core the same way as in the Simulator.
+ *
+ * The win rates are given with 95% confidence intervals, so a change to a player can be told apart from luck.
+ * Before a player is timed, it plays some other games untimed so that the JIT has compiled its code.
+ *
+ * Usage: Tournament [--games N] [--players solver,probability,rules,random] [--difficulty all|beginner|intermediate|expert]
+ *                   [--threads N] [--seed N] [--warmup N] [--out results.csv]
+ */
+public class Tournament {
+    private static final String CSV_HEADER = "difficulty,player,games,wins,win_rate,win_rate_low,win_rate_high,moves_per_second,games_per_second";
+
+    public static void main(String[] args) {
+        long games = 100_000;
+        String playerNames = "solver,probability,rules,random";
+        String difficultyName = "ALL";
+        int threads = Runtime.getRuntime().availableProcessors();
+        long seed = new Random().nextLong();
+        long warmup = 1000;
+        Path out = null;
+
+        List<String> players = new ArrayList<>();
+        try {
+            for (int i = 0; i < args.length; i++) {
+                String value = i + 1 < args.length ? args[i + 1] : "";
+                switch (args[i]) {
+                    case "--games" -> games = Long.parseLong(value);
+                    case "--players" -> playerNames = value;
+                    case "--difficulty" -> difficultyName = value.toUpperCase(Locale.ROOT);
+                    case "--threads" -> threads = Integer.parseInt(value);
+                    case "--seed" -> seed = Long.parseLong(value);
+                    case "--warmup" -> warmup = Long.parseLong(value);
+                    case "--out" -> out = Path.of(value);
+                    default -> throw new IllegalArgumentException("Unknown option: " + args[i]);
+                }
+                i++;
+            }
+            for (String name : playerNames.split(",")) {
+                Simulator.createPlayer(name);
+                players.add(name);
+            }
+            if (!difficultyName.equals("ALL")) {
+                Difficulties.valueOf(difficultyName);
+            }
+            if (games <= 0 || threads <= 0 || warmup < 0) {
+                throw new IllegalArgumentException("--games and --threads must be positive");
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println("Usage: Tournament [--games N] [--players solver,probability,rules,random] [--difficulty all|beginner|intermediate|expert]");
+            System.err.println("                  [--threads N] [--seed N] [--warmup N] [--out results.csv]");
+            System.exit(1);
+            return;
+        }
+
+        List<Difficulties> difficulties = new ArrayList<>();
+        if (difficultyName.equals("ALL")) {
+            difficulties.addAll(List.of(Difficulties.values()));
+        } else {
+            difficulties.add(Difficulties.valueOf(difficultyName));
+        }
+
+        System.out.println("Master seed: " + seed + ", threads: " + threads + ", games per player: " + games);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try (BufferedWriter writer = out == null ? null : Files.newBufferedWriter(out, StandardCharsets.UTF_8)) {
+            if (writer != null) {
+                writer.write(CSV_HEADER);
+                writer.newLine();
+            }
+
+            for (Difficulties difficulty : difficulties) {
+                System.out.println();
+                System.out.printf(Locale.ROOT, "%-12s %8s %19s %12s %10s%n", difficulty.name(), "win rate", "95% interval", "moves/s", "games/s");
+                for (String player : players) {
+                    Simulator simulator = new Simulator(difficulty, player, seed, threads);
+
+                    // The warmup games come after the measured ones, so they are different boards
+                    if (warmup > 0) {
+                        simulator.run(executor, games, warmup);
+                    }
+                    long startTime = System.nanoTime();
+                    SimulationStats stats = simulator.run(executor, 0, games);
+                    double seconds = (System.nanoTime() - startTime) / 1e9;
+                    double movesPerSecond = stats.getMoves() / seconds;
+                    double gamesPerSecond = stats.getGames() / seconds;
+
+                    System.out.printf(Locale.ROOT, "%-12s %7.2f%% [%6.2f%%, %6.2f%%] %12.0f %10.1f%n", player,
+                            stats.getWinRate() * 100, stats.getWinRateLower() * 100, stats.getWinRateUpper() * 100,
+                            movesPerSecond, gamesPerSecond);
+                    if (writer != null) {
+                        writer.write(String.format(Locale.ROOT, "%s,%s,%d,%d,%.6f,%.6f,%.6f,%.1f,%.1f", difficulty.name(), player,
+                                stats.getGames(), stats.getWins(), stats.getWinRate(), stats.getWinRateLower(),
+                                stats.getWinRateUpper(), movesPerSecond, gamesPerSecond));
+                        writer.newLine();
+                        writer.flush();
+                    }
+                }
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            System.exit(1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.github.AndrewAlbizati;
+
+/**
+ * The part of a board a player may see. Players get this instead of the board itself, so they can't cast it back
+ * to a Board and look for the mines, and reading the number of a hidden tile is an error.
+ */
+public final class VisibleBoard implements BoardView {
+    private final Board board;
+
+    public VisibleBoard(Board board) {
+        this.board = board;
+    }
+
+    @Override
+    public int getRows() {
+        return board.getRows();
+    }
+
+    @Override
+    public int getColumns() {
+        return board.getColumns();
+    }
+
+    @Override
+    public int getMines() {
+        return board.getMines();
+    }
+
+    @Override
+    public boolean isRevealed(int r, int c) {
+        return board.isRevealed(r, c);
+    }
+
+    @Override
+    public boolean isFlagged(int r, int c) {
+        return board.isFlagged(r, c);
+    }
+
+    @Override
+    public boolean isRevealed(int i) {
+        return board.isRevealed(i);
+    }
+
+    @Override
+    public boolean isFlagged(int i) {
+        return board.isFlagged(i);
+    }
+
+    /**
+     * @throws IllegalStateException If the tile isn't revealed.
+     */
+    @Override
+    public int getNumber(int r, int c) {
+        if (!board.isRevealed(r, c)) {
+            throw new IllegalStateException("The number of a hidden tile was read: " + r + ", " + c);
+        }
+        return board.getNumber(r, c);
+    }
+
+    @Override
+    public Topology getTopology() {
+        return board.getTopology();
+    }
+}